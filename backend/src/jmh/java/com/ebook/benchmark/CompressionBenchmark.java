@@ -0,0 +1,72 @@
+package com.ebook.benchmark;
+
+import com.ebook.model.CompressedTextConverter;
+import com.ebook.perf.SyntheticText;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost of compressing and decompressing section bodies at rest. The
+ * rawBytes and storedBytes counters in the results give the size ratio.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({"2000", "10000"})
+    private int chars;
+
+    private String content;
+    private byte[] stored;
+
+    @Setup
+    public void setUp() {
+        content = SyntheticText.prose(new Random(11), chars);
+        stored = CompressedTextConverter.compress(content);
+    }
+
+    @Benchmark
+    public byte[] compress(Sizes sizes) {
+        byte[] compressed = CompressedTextConverter.compress(content);
+        sizes.rawBytes += content.getBytes(StandardCharsets.UTF_8).length;
+        sizes.storedBytes += compressed.length;
+        return compressed;
+    }
+
+    @Benchmark
+    public String decompress() {
+        return CompressedTextConverter.decompress(stored);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Sizes {
+        public long rawBytes;
+        public long storedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rawBytes = 0;
+            storedBytes = 0;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.ebook.benchmark;
+
+import com.ebook.model.Ebook;
+import com.ebook.repository.FileBlobRepository;
+import com.ebook.service.BlobStorageService;
+import com.ebook.service.EbookService;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The upload and download file paths: hashing and storing a PDF into the
+ * content-addressed store, and resolving then reading it back. The blob
+ * bookkeeping table is stubbed so only file I/O and hashing are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileStorageBenchmark {
+
+    @Param({"1", "10", "50"})
+    private int sizeMb;
+
+    private BlobStorageService blobStorageService;
+    private EbookService ebookService;
+    private byte[] content;
+    private Ebook ebook;
+
+    @Setup
+    public void setUp() throws IOException {
+        blobStorageService = new BlobStorageService();
+        ReflectionTestUtils.setField(blobStorageService, "fileBlobRepository", Mockito.mock(FileBlobRepository.class));
+        ReflectionTestUtils.setField(blobStorageService, "transactionManager", new NoOpTransactionManager());
+        ReflectionTestUtils.invokeMethod(blobStorageService, "init");
+
+        ebookService = new EbookService();
+        ReflectionTestUtils.setField(ebookService, "blobStorageService", blobStorageService);
+
+        content = new byte[sizeMb * 1024 * 1024];
+        new Random(sizeMb).nextBytes(content);
+        byte[] header = "%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(header, 0, content, 0, header.length);
+
+        ebook = new Ebook();
+        ebook.setFilePath(blobStorageService.store(new ByteArrayInputStream(content)));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(blobStorageService.resolve(ebook.getFilePath()));
+    }
+
+    @Benchmark
+    public String storeFile() throws IOException {
+        return blobStorageService.store(new ByteArrayInputStream(content));
+    }
+
+    @Benchmark
+    public long readEbookFile() throws IOException {
+        Path file = ebookService.getEbookFile(ebook);
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    private static final class NoOpTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.ebook.benchmark;
+
+import com.ebook.config.JwtUtil;
+import com.ebook.model.Ebook;
+import com.ebook.model.Section;
+import com.ebook.perf.SyntheticText;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * Deterministic test data shared by the benchmarks; text comes from
+ * {@link SyntheticText}, the same generator the perf profile seeds with.
+ */
+final class Fixtures {
+
+    static final String JWT_SECRET = "benchmarkSecretKeyForJWTTokenGenerationThatIsAtLeast256BitsLong";
+
+    private Fixtures() {
+    }
+
+    static JwtUtil jwtUtil() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", JWT_SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86_400_000L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheSize", 10_000);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        return jwtUtil;
+    }
+
+    static Ebook ebook(long id, Random random, int sectionCount, int sectionChars) {
+        Ebook ebook = new Ebook();
+        ebook.setId(id);
+        ebook.setTitle(SyntheticText.title(random));
+        ebook.setAuthor(SyntheticText.title(random));
+        ebook.setCategory(SyntheticText.category(random));
+        ebook.setDescription(SyntheticText.prose(random, 400));
+        ebook.setFilePath("ab/" + "ab".repeat(32) + ".pdf");
+        ebook.setUploadDate(LocalDateTime.of(2024, 1, 1, 12, 0));
+        ebook.setUpdatedAt(ebook.getUploadDate());
+        ebook.setVersion(0L);
+        for (int i = 0; i < sectionCount; i++) {
+            ebook.getSections().add(section(id * 1000 + i, ebook, i, random, sectionChars));
+        }
+        return ebook;
+    }
+
+    static Section section(long id, Ebook ebook, int index, Random random, int chars) {
+        Section section = new Section();
+        section.setId(id);
+        section.setEbook(ebook);
+        section.setTitle("Chapter " + (index + 1) + ": " + SyntheticText.title(random));
+        section.setSectionOrder((index + 1) * 1024);
+        section.setContent(SyntheticText.prose(random, chars));
+        return section;
+    }
+}
@@ -0,0 +1,80 @@
+package com.ebook.benchmark;
+
+import com.ebook.config.AuthenticatedUser;
+import com.ebook.config.JwtAuthenticationFilter;
+import com.ebook.config.JwtUtil;
+import com.ebook.model.Role;
+import com.ebook.model.User;
+import com.ebook.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtAuthenticationFilter end to end on a mock request: header parsing, token
+ * verification, principal lookup (served from a stub, as the principal cache
+ * would) and security context population.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private JwtAuthenticationFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = Fixtures.jwtUtil();
+        authorization = "Bearer " + jwtUtil.generateToken("reader");
+
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("reader");
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuuN8M3.6v7tS1rSjC0B2r7sEJ1Y7h6o8W");
+        user.setEmail("reader@example.com");
+        user.setRole(Role.USER);
+        user.setCreatedAt(LocalDateTime.of(2024, 1, 1, 0, 0));
+        UserService userService = Mockito.mock(UserService.class);
+        Mockito.when(userService.loadUserByUsername("reader")).thenAnswer(call -> new AuthenticatedUser(user));
+
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "userService", userService);
+        ReflectionTestUtils.setField(filter, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(filter, "registerMeters");
+    }
+
+    @Benchmark
+    public Authentication authenticate() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/ebooks");
+        request.addHeader("Authorization", authorization);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.ebook.benchmark;
+
+import com.ebook.model.Ebook;
+import com.ebook.search.EbookSearchIndex;
+import com.ebook.search.SectionSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency of the in-memory catalog and section indexes over a generated
+ * corpus. The summary/section fetch by id that follows in the services is a
+ * primary-key lookup and is left to the load test.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"10000", "50000"})
+    private int ebooks;
+
+    private EbookSearchIndex ebookSearchIndex;
+    private SectionSearchIndex sectionSearchIndex;
+    private List<List<String>> phraseQuery;
+    private List<List<String>> termQuery;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        ebookSearchIndex = new EbookSearchIndex();
+        sectionSearchIndex = new SectionSearchIndex();
+        for (long id = 1; id <= ebooks; id++) {
+            // Sections only for a tenth of the books keeps setup time reasonable
+            Ebook ebook = Fixtures.ebook(id, random, id % 10 == 0 ? 10 : 0, 4000);
+            ebookSearchIndex.index(ebook);
+            ebook.getSections().forEach(sectionSearchIndex::index);
+        }
+        phraseQuery = SectionSearchIndex.parseQuery("\"the dark forest\" king");
+        termQuery = SectionSearchIndex.parseQuery("dragon castle winter");
+    }
+
+    @Benchmark
+    public EbookSearchIndex.Result ebookKeywords() {
+        return ebookSearchIndex.search("dragon queen", 0, 20);
+    }
+
+    /** The last token is a prefix, as typed into the search box. */
+    @Benchmark
+    public EbookSearchIndex.Result ebookPrefix() {
+        return ebookSearchIndex.search("silver hist", 0, 20);
+    }
+
+    @Benchmark
+    public SectionSearchIndex.Result sectionTerms() {
+        return sectionSearchIndex.search(termQuery, null, 0, 20);
+    }
+
+    @Benchmark
+    public SectionSearchIndex.Result sectionPhrase() {
+        return sectionSearchIndex.search(phraseQuery, null, 0, 20);
+    }
+}
@@ -0,0 +1,129 @@
+package com.ebook.benchmark;
+
+import com.ebook.EbookManagementApplication;
+import com.ebook.model.Ebook;
+import com.ebook.model.Role;
+import com.ebook.model.Section;
+import com.ebook.model.User;
+import com.ebook.repository.EbookRepository;
+import com.ebook.repository.UserRepository;
+import com.ebook.service.EbookService;
+import com.ebook.service.SectionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adding a batch of sections to one ebook, against the test profile's embedded
+ * H2: one createSection call per section (what clients did before the bulk
+ * endpoint, minus the HTTP round trips) versus one streamed importSections call.
+ * Each iteration writes into a fresh ebook that is deleted afterwards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SectionImportBenchmark {
+
+    @Param({"10", "500"})
+    private int sections;
+
+    @Param({"2000"})
+    private int sectionChars;
+
+    private ConfigurableApplicationContext context;
+    private SectionService sectionService;
+    private EbookService ebookService;
+    private EbookRepository ebookRepository;
+    private User owner;
+    private List<Map<String, String>> rows;
+    private byte[] json;
+    private Ebook ebook;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws IOException {
+        context = new SpringApplicationBuilder(EbookManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run();
+        sectionService = context.getBean(SectionService.class);
+        ebookService = context.getBean(EbookService.class);
+        ebookRepository = context.getBean(EbookRepository.class);
+
+        owner = new User();
+        owner.setUsername("benchmark-owner");
+        owner.setPassword("x");
+        owner.setEmail("benchmark-owner@example.com");
+        owner.setRole(Role.USER);
+        owner = context.getBean(UserRepository.class).save(owner);
+
+        Random random = new Random(12);
+        rows = new ArrayList<>(sections);
+        for (int i = 0; i < sections; i++) {
+            Section section = Fixtures.section(i, null, i, random, sectionChars);
+            rows.add(Map.of("title", section.getTitle(), "content", section.getContent()));
+        }
+        json = context.getBean(ObjectMapper.class).writeValueAsBytes(rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void createEbook() {
+        ebook = new Ebook();
+        ebook.setTitle("Benchmark import target");
+        ebook.setAuthor("Author");
+        ebook.setCategory("benchmark");
+        ebook.setUser(owner);
+        ebook = ebookRepository.save(ebook);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteEbook() {
+        ebookService.deleteEbook(ebook.getId());
+    }
+
+    @Benchmark
+    public int perSectionSave() {
+        for (Map<String, String> row : rows) {
+            Section section = new Section();
+            section.setTitle(row.get("title"));
+            section.setContent(row.get("content"));
+            section.setEbook(ebook);
+            sectionService.createSection(section);
+        }
+        return rows.size();
+    }
+
+    @Benchmark
+    public int bulkImport() throws IOException {
+        return sectionService.importSections(ebook.getId(), new ByteArrayInputStream(json));
+    }
+}
@@ -0,0 +1,374 @@
+package com.ebook.loadtest;
+
+import com.ebook.EbookManagementApplication;
+import com.ebook.perf.SyntheticText;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop HTTP load generator. Each virtual user logs in as one of the seeded
+ * readers and then issues requests from the {@link Operation} mix back to back
+ * (plus optional think time) until the run ends. Latencies are recorded only after
+ * the warmup; the run fails when any SLO in {@link LoadTestConfig} is breached.
+ *
+ * <p>Closed-loop users wait for each response before sending the next request, so
+ * when the server stalls the offered load drops with it. Percentiles are therefore
+ * optimistic under saturation; compare runs at the same user count.
+ */
+public final class LoadGenerator {
+
+    private static final int PAGE_SIZE = 100;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final LoadTestConfig config;
+    private final String baseUrl;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Operation, LatencyStats> stats = new EnumMap<>(Operation.class);
+
+    private List<Long> ebookIds = List.of();
+    private List<Long> sectionIds = List.of();
+    private List<String> categories = List.of();
+    private volatile long measureFrom;
+
+    private LoadGenerator(LoadTestConfig config, String baseUrl, ExecutorService executor) {
+        this.config = config;
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new LatencyStats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        ConfigurableApplicationContext application = null;
+        String baseUrl = config.baseUrl();
+        if (baseUrl.isEmpty()) {
+            // In-process target: the seeder and index rebuilds finish before run() returns
+            String profiles = config.profiles().isEmpty() ? "perf" : "perf," + config.profiles();
+            application = SpringApplication.run(EbookManagementApplication.class,
+                    "--spring.profiles.active=" + profiles, "--server.port=0");
+            int port = ((WebServerApplicationContext) application).getWebServer().getPort();
+            baseUrl = "http://localhost:" + port;
+            config = new LoadTestConfig(baseUrl, config.profiles(), config.users(), config.duration(), config.warmup(),
+                    config.thinkTime(),
+                    application.getEnvironment().getProperty("app.perf.seed.users", Integer.class, config.accounts()),
+                    application.getEnvironment().getProperty("app.perf.seed.password", config.password()),
+                    config.discoverLimit(), config.sloP99Millis(), config.sloP999Millis(), config.sloErrorRate(),
+                    config.results());
+        }
+
+        boolean passed;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            passed = new LoadGenerator(config, baseUrl, executor).run();
+        } finally {
+            if (application != null) {
+                SpringApplication.exit(application);
+            }
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private boolean run() throws Exception {
+        String token = login(1);
+        discover(token);
+        System.out.printf(Locale.ROOT, "Target %s: %d ebooks, %d sections, %d categories%n",
+                baseUrl, ebookIds.size(), sectionIds.size(), categories.size());
+        if (ebookIds.isEmpty() || sectionIds.isEmpty()) {
+            throw new IllegalStateException("Target has no catalog to read; seed it or use the perf profile");
+        }
+
+        long start = System.nanoTime();
+        measureFrom = start + config.warmup().toNanos();
+        long end = measureFrom + config.duration().toNanos();
+        System.out.printf(Locale.ROOT, "Running %d users: %s warmup, %s measured%n",
+                config.users(), config.warmup(), config.duration());
+
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int user = 0; user < config.users(); user++) {
+                int account = user % Math.max(config.accounts(), 1) + 1;
+                users.submit(() -> {
+                    runUser(account, end);
+                    return null;
+                });
+            }
+        }
+
+        double seconds = config.duration().toNanos() / 1e9;
+        return report(seconds);
+    }
+
+    private void runUser(int account, long end) throws InterruptedException {
+        String token = null;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < end) {
+            Operation operation = token == null ? Operation.LOGIN : Operation.pick(random.nextDouble());
+            long started = System.nanoTime();
+            boolean failed;
+            try {
+                HttpResponse<byte[]> response = execute(operation, account, token, random);
+                failed = response.statusCode() >= 400;
+                if (operation == Operation.LOGIN && !failed) {
+                    token = objectMapper.readTree(response.body()).path("token").asText(null);
+                }
+            } catch (IOException e) {
+                failed = true;
+            }
+            long elapsed = System.nanoTime() - started;
+            if (started >= measureFrom && started < end) {
+                stats.get(operation).record(elapsed, failed);
+            }
+            if (!config.thinkTime().isZero()) {
+                Thread.sleep(config.thinkTime());
+            }
+        }
+    }
+
+    private HttpResponse<byte[]> execute(Operation operation, int account, String token, Random random)
+            throws IOException, InterruptedException {
+        return switch (operation) {
+            case LOGIN -> send(loginRequest(account));
+            case BROWSE -> send(get("/api/ebooks?size=50", token));
+            case BROWSE_CATEGORY -> send(get("/api/ebooks/category/" + encode(pick(categories, random)) + "?size=50", token));
+            case FACETS -> send(get("/api/ebooks/facets", token));
+            case TRENDING -> send(get("/api/ebooks/trending", token));
+            case SEARCH_EBOOKS -> send(get("/api/ebooks/search?keyword=" + encode(SyntheticText.word(random)), token));
+            case SEARCH_SECTIONS -> send(get("/api/sections/search?q=" + encode(query(random)), token));
+            case GET_EBOOK -> send(get("/api/ebooks/" + pick(ebookIds, random), token));
+            case LIST_SECTIONS -> send(get("/api/sections/ebook/" + pick(ebookIds, random), token));
+            case SECTION_CONTENT -> send(HttpRequest.newBuilder(uri("/api/sections/" + pick(sectionIds, random) + "/content"))
+                    .header("Authorization", "Bearer " + token)
+                    .header("Accept-Encoding", "gzip")
+                    .timeout(REQUEST_TIMEOUT)
+                    .build());
+            case DOWNLOAD -> send(get("/api/ebooks/" + pick(ebookIds, random) + "/download", token));
+            case REPORT_PROGRESS -> send(progressRequest(token, random));
+            case UPLOAD -> send(uploadRequest(token, random));
+        };
+    }
+
+    private String login(int account) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = send(loginRequest(account));
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login as reader" + account + " failed with HTTP " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body()).path("token").asText();
+    }
+
+    private HttpRequest loginRequest(int account) throws IOException {
+        Map<String, String> credentials = Map.of("username", "reader" + account, "password", config.password());
+        return HttpRequest.newBuilder(uri("/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .timeout(REQUEST_TIMEOUT)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(credentials)))
+                .build();
+    }
+
+    private HttpRequest progressRequest(String token, Random random) throws IOException {
+        Map<String, Object> position = Map.of("sectionId", pick(sectionIds, random), "offset", random.nextInt(20_000));
+        return HttpRequest.newBuilder(uri("/api/progress/" + pick(ebookIds, random)))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .timeout(REQUEST_TIMEOUT)
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(position)))
+                .build();
+    }
+
+    /** A small PDF with random content, so each upload stores a new blob. */
+    private HttpRequest uploadRequest(String token, Random random) {
+        String boundary = UUID.randomUUID().toString();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("title", SyntheticText.title(random));
+        fields.put("author", SyntheticText.title(random));
+        fields.put("category", pick(categories, random));
+        fields.put("description", SyntheticText.prose(random, 200));
+        fields.forEach((name, value) -> body.writeBytes(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + name + "\"\r\n\r\n"
+                + value + "\r\n").getBytes(StandardCharsets.UTF_8)));
+
+        byte[] pdf = new byte[64 * 1024];
+        random.nextBytes(pdf);
+        byte[] header = "%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(header, 0, pdf, 0, header.length);
+        body.writeBytes(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"loadtest.pdf\"\r\n"
+                + "Content-Type: application/pdf\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(pdf);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        return HttpRequest.newBuilder(uri("/api/ebooks"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .timeout(REQUEST_TIMEOUT)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+    }
+
+    /** Collects ids to request from the catalog listings, up to the discover limit. */
+    private void discover(String token) throws IOException, InterruptedException {
+        ebookIds = collectIds("/api/ebooks", token);
+        sectionIds = collectIds("/api/sections", token);
+        List<String> found = new ArrayList<>();
+        for (JsonNode facet : objectMapper.readTree(send(get("/api/ebooks/facets", token)).body())) {
+            found.add(facet.path("category").asText());
+        }
+        categories = found.isEmpty() ? List.of("Fiction") : found;
+    }
+
+    private List<Long> collectIds(String path, String token) throws IOException, InterruptedException {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            String query = "?size=" + PAGE_SIZE + (cursor != null ? "&cursor=" + encode(cursor) : "");
+            HttpResponse<byte[]> response = send(get(path + query, token));
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("GET " + path + " failed with HTTP " + response.statusCode());
+            }
+            for (JsonNode item : objectMapper.readTree(response.body())) {
+                ids.add(item.path("id").asLong());
+            }
+            cursor = response.headers().firstValue(NEXT_CURSOR_HEADER).orElse(null);
+        } while (cursor != null && ids.size() < config.discoverLimit());
+        return ids;
+    }
+
+    private boolean report(double seconds) throws IOException {
+        LatencyStats total = new LatencyStats();
+        List<String> breaches = new ArrayList<>();
+        Map<String, Object> operations = new LinkedHashMap<>();
+
+        System.out.printf(Locale.ROOT, "%n%-16s %9s %9s %7s %9s %9s %9s %9s%n",
+                "operation", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            LatencyStats operationStats = stats.get(operation);
+            operationStats.addTo(total);
+            if (operationStats.count() == 0) {
+                continue;
+            }
+            print(operation.key(), operationStats, seconds);
+            operations.put(operation.key(), summary(operationStats, seconds));
+
+            double p99 = operationStats.percentileMillis(99.0);
+            double p999 = operationStats.percentileMillis(99.9);
+            if (p99 > config.p99Millis(operation)) {
+                breaches.add(String.format(Locale.ROOT, "%s p99 %.1f ms > %d ms",
+                        operation.key(), p99, config.p99Millis(operation)));
+            }
+            if (p999 > config.p999Millis(operation)) {
+                breaches.add(String.format(Locale.ROOT, "%s p99.9 %.1f ms > %d ms",
+                        operation.key(), p999, config.p999Millis(operation)));
+            }
+        }
+        print("total", total, seconds);
+        if (total.count() == 0 || total.errorRate() > config.sloErrorRate()) {
+            breaches.add(String.format(Locale.ROOT, "error rate %.4f > %.4f (%d requests)",
+                    total.errorRate(), config.sloErrorRate(), total.count()));
+        }
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("baseUrl", baseUrl);
+        results.put("users", config.users());
+        results.put("durationSeconds", seconds);
+        results.put("total", summary(total, seconds));
+        results.put("operations", operations);
+        results.put("sloBreaches", breaches);
+        Path resultsPath = Path.of(config.results());
+        if (resultsPath.getParent() != null) {
+            Files.createDirectories(resultsPath.getParent());
+        }
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(resultsPath.toFile(), results);
+        System.out.println("\nResults written to " + resultsPath.toAbsolutePath());
+
+        if (breaches.isEmpty()) {
+            System.out.println("All SLOs met");
+            return true;
+        }
+        System.out.println("SLO breached:");
+        breaches.forEach(breach -> System.out.println("  " + breach));
+        return false;
+    }
+
+    private static void print(String name, LatencyStats operationStats, double seconds) {
+        System.out.printf(Locale.ROOT, "%-16s %9d %9.1f %7d %9.2f %9.2f %9.2f %9.2f%n",
+                name, operationStats.count(), operationStats.count() / seconds, operationStats.errors(),
+                operationStats.percentileMillis(50.0), operationStats.percentileMillis(99.0),
+                operationStats.percentileMillis(99.9), operationStats.maxMillis());
+    }
+
+    private static Map<String, Object> summary(LatencyStats operationStats, double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", operationStats.count());
+        summary.put("throughput", operationStats.count() / seconds);
+        summary.put("errors", operationStats.errors());
+        summary.put("p50Ms", operationStats.percentileMillis(50.0));
+        summary.put("p99Ms", operationStats.percentileMillis(99.0));
+        summary.put("p999Ms", operationStats.percentileMillis(99.9));
+        summary.put("maxMs", operationStats.maxMillis());
+        return summary;
+    }
+
+    private HttpRequest get(String path, String token) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(REQUEST_TIMEOUT)
+                .build();
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    /** One or two words; about a third of two-word queries are phrases. */
+    private static String query(Random random) {
+        if (random.nextBoolean()) {
+            return SyntheticText.word(random);
+        }
+        String phrase = SyntheticText.word(random) + " " + SyntheticText.word(random);
+        return random.nextInt(3) == 0 ? "\"" + phrase + "\"" : phrase;
+    }
+
+    private static <T> T pick(List<T> values, Random random) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
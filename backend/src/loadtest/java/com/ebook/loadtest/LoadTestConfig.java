@@ -0,0 +1,73 @@
+package com.ebook.loadtest;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * Load test settings, read from {@code loadtest.*} system properties. Durations
+ * accept {@code 90s}, {@code 5m}, {@code 1h} or ISO-8601. {@code loadtest.profiles}
+ * adds Spring profiles to the in-process target, e.g. {@code virtual-threads}.
+ */
+record LoadTestConfig(
+        String baseUrl,
+        String profiles,
+        int users,
+        Duration duration,
+        Duration warmup,
+        Duration thinkTime,
+        int accounts,
+        String password,
+        int discoverLimit,
+        long sloP99Millis,
+        long sloP999Millis,
+        double sloErrorRate,
+        String results) {
+
+    static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                System.getProperty("loadtest.base-url", "").trim(),
+                System.getProperty("loadtest.profiles", "").trim(),
+                Integer.getInteger("loadtest.users", 50),
+                duration("loadtest.duration", "60s"),
+                duration("loadtest.warmup", "15s"),
+                duration("loadtest.think-time", "0s"),
+                Integer.getInteger("loadtest.accounts", 50),
+                System.getProperty("loadtest.password", "perf-password"),
+                Integer.getInteger("loadtest.discover-limit", 5000),
+                Long.getLong("loadtest.slo.p99-ms", 250),
+                Long.getLong("loadtest.slo.p999-ms", 1000),
+                Double.parseDouble(System.getProperty("loadtest.slo.error-rate", "0.001")),
+                System.getProperty("loadtest.results", "target/loadtest-results.json"));
+    }
+
+    /** The p99 budget for one operation; {@code loadtest.slo.p99-ms.<operation>} overrides the default. */
+    long p99Millis(Operation operation) {
+        return Long.getLong("loadtest.slo.p99-ms." + operation.key(), sloP99Millis);
+    }
+
+    long p999Millis(Operation operation) {
+        return Long.getLong("loadtest.slo.p999-ms." + operation.key(), sloP999Millis);
+    }
+
+    private static Duration duration(String property, String defaultValue) {
+        String value = System.getProperty(property, defaultValue).trim().toLowerCase(Locale.ROOT);
+        if (value.isEmpty()) {
+            value = defaultValue;
+        }
+        try {
+            if (value.endsWith("ms")) {
+                return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+            }
+            long amount = Long.parseLong(value.substring(0, value.length() - 1));
+            return switch (value.charAt(value.length() - 1)) {
+                case 's' -> Duration.ofSeconds(amount);
+                case 'm' -> Duration.ofMinutes(amount);
+                case 'h' -> Duration.ofHours(amount);
+                default -> Duration.parse(value.toUpperCase(Locale.ROOT));
+            };
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid duration for " + property + ": " + value, e);
+        }
+    }
+}
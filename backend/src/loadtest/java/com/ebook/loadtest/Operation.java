@@ -0,0 +1,55 @@
+package com.ebook.loadtest;
+
+import java.util.Locale;
+
+/**
+ * The request mix of a virtual user, weighted towards catalog reads the way the
+ * reader UI drives the API. Weights are relative, not percentages.
+ */
+enum Operation {
+    LOGIN(1),
+    BROWSE(18),
+    BROWSE_CATEGORY(10),
+    FACETS(5),
+    TRENDING(3),
+    SEARCH_EBOOKS(10),
+    SEARCH_SECTIONS(10),
+    GET_EBOOK(15),
+    LIST_SECTIONS(12),
+    SECTION_CONTENT(15),
+    DOWNLOAD(3),
+    REPORT_PROGRESS(6),
+    UPLOAD(1);
+
+    private static final int TOTAL_WEIGHT;
+
+    static {
+        int total = 0;
+        for (Operation operation : values()) {
+            total += operation.weight;
+        }
+        TOTAL_WEIGHT = total;
+    }
+
+    private final int weight;
+
+    Operation(int weight) {
+        this.weight = weight;
+    }
+
+    String key() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    /** Picks an operation for {@code roll} drawn uniformly from {@code [0, 1)}. */
+    static Operation pick(double roll) {
+        int target = (int) (roll * TOTAL_WEIGHT);
+        for (Operation operation : values()) {
+            target -= operation.weight;
+            if (target < 0) {
+                return operation;
+            }
+        }
+        return BROWSE;
+    }
+}
@@ -0,0 +1,74 @@
+package com.ebook.config;
+
+import com.ebook.model.Role;
+import com.ebook.model.User;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Security principal carrying the user's id and profile, so request handlers can
+ * identify the caller without another users-table lookup.
+ */
+public class AuthenticatedUser extends org.springframework.security.core.userdetails.User {
+
+    private final Long id;
+    private final String email;
+    private final Role role;
+    private final LocalDateTime createdAt;
+
+    public AuthenticatedUser(User user) {
+        this(user.getId(), user.getUsername(), user.getPassword(), user.getEmail(), user.getRole(), user.getCreatedAt());
+    }
+
+    public AuthenticatedUser(AuthenticatedUser other) {
+        this(other.id, other.getUsername(), other.getPassword(), other.email, other.role, other.createdAt);
+    }
+
+    private AuthenticatedUser(Long id, String username, String password, String email, Role role,
+                              LocalDateTime createdAt) {
+        super(username, password, List.of(new SimpleGrantedAuthority("ROLE_" + role.name())));
+        this.id = id;
+        this.email = email;
+        this.role = role;
+        this.createdAt = createdAt;
+    }
+
+    public static AuthenticatedUser current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return principal;
+        }
+        return null;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public User toUser() {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(getUsername());
+        user.setPassword(getPassword());
+        user.setEmail(email);
+        user.setRole(role);
+        user.setCreatedAt(createdAt);
+        return user;
+    }
+}
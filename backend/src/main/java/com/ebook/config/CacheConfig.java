@@ -0,0 +1,69 @@
+package com.ebook.config;
+
+import com.ebook.dto.CursorPage;
+import com.ebook.model.Ebook;
+import com.ebook.service.CatalogCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * Caffeine (W-TinyLFU) caches for catalog reads. Each cache is bounded by weight,
+ * counted in rows (an ebook plus its sections, or the rows of a page), and records
+ * statistics that actuator publishes as cache.gets, cache.evictions and cache.size.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    @Value("${app.cache.ttl:10m}")
+    private Duration ttl;
+
+    @Value("${app.cache.ebooks.max-rows:100000}")
+    private long maxEbookRows;
+
+    @Value("${app.cache.sections.max-rows:200000}")
+    private long maxSectionRows;
+
+    @Value("${app.cache.category-pages.max-rows:50000}")
+    private long maxCategoryPageRows;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        cacheManager.registerCustomCache(CatalogCache.EBOOKS, rowWeighted(maxEbookRows));
+        cacheManager.registerCustomCache(CatalogCache.EBOOK_SECTIONS, rowWeighted(maxSectionRows));
+        cacheManager.registerCustomCache(CatalogCache.CATEGORY_PAGES, rowWeighted(maxCategoryPageRows));
+        return cacheManager;
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> rowWeighted(long maxRows) {
+        return Caffeine.newBuilder()
+                .maximumWeight(maxRows)
+                .weigher((Object key, Object value) -> 1 + rows(value))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    private static int rows(Object value) {
+        if (value instanceof Ebook ebook) {
+            return ebook.getSections().size();
+        }
+        if (value instanceof CursorPage<?> page) {
+            return page.getItems().size();
+        }
+        if (value instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        return 0;
+    }
+}
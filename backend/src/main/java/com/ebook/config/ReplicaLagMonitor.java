@@ -0,0 +1,131 @@
+package com.ebook.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Measures replica lag with a heartbeat row: the primary's row is stamped with the
+ * current time on every beat, and each replica's copy shows how far its replay has
+ * got. Lag is accurate to about one heartbeat interval. A replica whose row cannot
+ * be read counts as infinitely behind until the next successful beat.
+ */
+public class ReplicaLagMonitor implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+    private static final long UNREACHABLE = -1;
+
+    private final JdbcTemplate primary;
+    private final List<HikariDataSource> replicas;
+    private final List<JdbcTemplate> replicaTemplates;
+    private final long maxLagMillis;
+    private final long heartbeatMillis;
+    private final MeterRegistry meterRegistry;
+    private final AtomicLongArray replicaBeats;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaLagMonitor(DataSource primary, List<HikariDataSource> replicas, Duration maxLag,
+                             Duration heartbeatInterval, MeterRegistry meterRegistry) {
+        this.primary = new JdbcTemplate(primary);
+        this.replicas = List.copyOf(replicas);
+        this.replicaTemplates = replicas.stream().map(JdbcTemplate::new).toList();
+        this.maxLagMillis = maxLag.toMillis();
+        this.heartbeatMillis = heartbeatInterval.toMillis();
+        this.meterRegistry = meterRegistry;
+        this.replicaBeats = new AtomicLongArray(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            replicaBeats.set(i, UNREACHABLE);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        primary.execute("CREATE TABLE IF NOT EXISTS replication_heartbeat "
+                + "(id INT PRIMARY KEY, beat_millis BIGINT NOT NULL)");
+        for (int i = 0; i < replicas.size(); i++) {
+            int replica = i;
+            Gauge.builder("db.replica.lag", this, monitor -> monitor.lagSeconds(replica))
+                    .baseUnit("seconds")
+                    .tag("replica", replicas.get(i).getPoolName())
+                    .register(meterRegistry);
+        }
+        beat();
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(HikariDataSource::close);
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.heartbeat-interval:PT1S}")
+    public void beat() {
+        long now = System.currentTimeMillis();
+        try {
+            if (primary.update("UPDATE replication_heartbeat SET beat_millis = ? WHERE id = 1", now) == 0) {
+                primary.update("INSERT INTO replication_heartbeat (id, beat_millis) VALUES (1, ?)", now);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not write replication heartbeat: {}", e.getMessage());
+        }
+
+        for (int i = 0; i < replicaTemplates.size(); i++) {
+            try {
+                Long beat = replicaTemplates.get(i).queryForObject(
+                        "SELECT beat_millis FROM replication_heartbeat WHERE id = 1", Long.class);
+                replicaBeats.set(i, beat != null ? beat : UNREACHABLE);
+            } catch (DataAccessException e) {
+                if (replicaBeats.getAndSet(i, UNREACHABLE) != UNREACHABLE) {
+                    log.warn("Replica {} unavailable for reads: {}", replicas.get(i).getPoolName(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    DataSource replica(int index) {
+        return replicas.get(index);
+    }
+
+    int replicaCount() {
+        return replicas.size();
+    }
+
+    /**
+     * Round-robins over the replicas that are within the lag tolerance and have
+     * replayed a heartbeat stamped after {@code writtenAtMillis}.
+     *
+     * @return the replica index, or -1 when reads must go to the primary
+     */
+    int pickReplica(long writtenAtMillis) {
+        long oldestAcceptable = System.currentTimeMillis() - maxLagMillis - heartbeatMillis;
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            int replica = (start + i) % replicas.size();
+            long beat = replicaBeats.get(replica);
+            if (beat != UNREACHABLE && beat >= oldestAcceptable && beat > writtenAtMillis) {
+                return replica;
+            }
+        }
+        return -1;
+    }
+
+    private double lagSeconds(int replica) {
+        long beat = replicaBeats.get(replica);
+        if (beat == UNREACHABLE) {
+            return Double.NaN;
+        }
+        return Math.max(0, System.currentTimeMillis() - beat - heartbeatMillis) / 1000.0;
+    }
+}
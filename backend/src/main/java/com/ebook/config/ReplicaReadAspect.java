@@ -0,0 +1,45 @@
+package com.ebook.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Marks the thread while a {@code @Transactional(readOnly = true)} service method
+ * runs, so {@link ReplicaRoutingDataSource} only sends those reads to replicas.
+ *
+ * <p>{@code @Cacheable} methods are left unmarked and read the primary: a row read
+ * from a lagging replica would otherwise be served from the cache, and validate
+ * ETags, for the cache's whole TTL rather than for at most the lag tolerance.
+ */
+@Aspect
+public class ReplicaReadAspect {
+
+    private static final ThreadLocal<Boolean> SERVICE_READ = ThreadLocal.withInitial(() -> false);
+
+    @Around("execution(public * com.ebook.service..*(..)) && @annotation(transactional)")
+    public Object markServiceRead(ProceedingJoinPoint joinPoint, Transactional transactional) throws Throwable {
+        if (!transactional.readOnly()) {
+            return joinPoint.proceed();
+        }
+        boolean replicaRead = !((MethodSignature) joinPoint.getSignature()).getMethod()
+                .isAnnotationPresent(Cacheable.class);
+        boolean outer = SERVICE_READ.get();
+        if (replicaRead == outer) {
+            return joinPoint.proceed();
+        }
+        SERVICE_READ.set(replicaRead);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            SERVICE_READ.set(outer);
+        }
+    }
+
+    static boolean inServiceRead() {
+        return SERVICE_READ.get();
+    }
+}
@@ -0,0 +1,78 @@
+package com.ebook.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Chooses the primary or a replica whenever a connection is acquired. A connection
+ * goes to a replica only for a read-only service transaction (see
+ * {@link ReplicaReadAspect}); repository-level read-only transactions inside write
+ * flows keep reading the primary.
+ *
+ * <p>Read-your-writes: when a user's read-write transaction commits, that user's
+ * reads stay on the primary until a replica has replayed a heartbeat written after
+ * the commit. Stickiness is per instance and forgotten after the sticky window,
+ * which should exceed the lag tolerance.
+ */
+class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+
+    private final ReplicaLagMonitor monitor;
+    private final Cache<String, Long> lastWrites;
+
+    ReplicaRoutingDataSource(DataSource primary, ReplicaLagMonitor monitor, Duration stickyWindow) {
+        this.monitor = monitor;
+        this.lastWrites = Caffeine.newBuilder()
+                .expireAfterWrite(stickyWindow)
+                .maximumSize(100_000)
+                .build();
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < monitor.replicaCount(); i++) {
+            targets.put(i, monitor.replica(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String username = currentUsername();
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (!readOnly || !ReplicaReadAspect.inServiceRead()) {
+            if (!readOnly && username != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        lastWrites.put(username, System.currentTimeMillis());
+                    }
+                });
+            }
+            return PRIMARY;
+        }
+
+        Long lastWrite = username != null ? lastWrites.getIfPresent(username) : null;
+        int replica = monitor.pickReplica(lastWrite != null ? lastWrite : 0);
+        return replica >= 0 ? replica : PRIMARY;
+    }
+
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && !(authentication instanceof AnonymousAuthenticationToken)
+                ? authentication.getName()
+                : null;
+    }
+}
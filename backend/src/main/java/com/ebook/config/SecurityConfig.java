@@ -2,6 +2,7 @@ package com.ebook.config;
 
 import org.springframework.http.HttpMethod;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
@@ -33,8 +34,8 @@ public class SecurityConfig {
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.password-hashing.bcrypt-strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 
     @Bean
@@ -61,6 +62,9 @@ public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Excepti
             .requestMatchers(HttpMethod.POST, "/api/ebooks/**").authenticated()  // ✅ Allow POST for ebooks
             .requestMatchers(HttpMethod.PUT, "/api/ebooks/**").authenticated()  // ✅ Allow PUT for ebooks
             .requestMatchers(HttpMethod.DELETE, "/api/ebooks/**").hasRole("ADMIN")  // ✅ Only ADMIN can delete
+            .requestMatchers("/api/admin/**").hasRole("ADMIN")
+            .requestMatchers("/actuator/health").permitAll()  // Liveness and readiness probes
+            .requestMatchers("/actuator/**").hasRole("ADMIN")  // Including the Prometheus scrape
             .anyRequest().authenticated()
         )
         .sessionManagement(session -> session
@@ -90,7 +94,7 @@ public CorsConfigurationSource corsConfigurationSource() {
     configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
     configuration.setAllowedHeaders(Arrays.asList("*"));
     configuration.setAllowCredentials(true);  // Keep this as true for JWT
-    configuration.setExposedHeaders(Arrays.asList("Authorization"));
+    configuration.setExposedHeaders(Arrays.asList("Authorization", "X-Total-Count", "X-Next-Cursor"));
     
     UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
     source.registerCorsConfiguration("/**", configuration);
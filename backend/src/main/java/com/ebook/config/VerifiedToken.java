@@ -0,0 +1,13 @@
+package com.ebook.config;
+
+import java.time.Instant;
+
+/**
+ * Claims of a token whose signature and expiry have already been checked.
+ */
+public record VerifiedToken(String username, Instant expiresAt) {
+
+    public boolean isExpired() {
+        return !Instant.now().isBefore(expiresAt);
+    }
+}
@@ -3,18 +3,19 @@ package com.ebook.controller;
 import com.ebook.model.Role;
 import com.ebook.model.User;
 import com.ebook.config.JwtUtil;
+import com.ebook.service.PasswordHashingService;
 import com.ebook.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -22,54 +23,73 @@ import java.util.Map;
 public class AuthController {
 
     @Autowired
-    private AuthenticationManager authenticationManager;
+    private UserService userService;
 
     @Autowired
-    private UserService userService;
+    private PasswordHashingService passwordHashingService;
 
     @Autowired
     private JwtUtil jwtUtil;
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest loginRequest) {
+        User user = userService.findByUsername(loginRequest.getUsername());
+        String encodedPassword = user != null ? user.getPassword() : null;
+
         try {
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            loginRequest.getUsername(),
-                            loginRequest.getPassword()
-                    )
-            );
-
-            User user = userService.findByUsername(loginRequest.getUsername());
-            String token = jwtUtil.generateToken(user.getUsername());
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("token", token);
-            response.put("username", user.getUsername());
-            response.put("role", user.getRole());
-            response.put("userId", user.getId());
-
-            return ResponseEntity.ok(response);
-        } catch (AuthenticationException e) {
+            // BCrypt runs on the hashing pool; the servlet thread is released until it completes
+            return passwordHashingService.matches(loginRequest.getPassword(), encodedPassword)
+                    .thenApply(matches -> {
+                        if (!matches) {
+                            Map<String, String> error = new HashMap<>();
+                            error.put("message", "Invalid username or password");
+                            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+                        }
+
+                        if (passwordHashingService.needsRehash(user.getPassword())) {
+                            rehashPassword(user, loginRequest.getPassword());
+                        }
+
+                        String token = jwtUtil.generateToken(user.getUsername());
+
+                        Map<String, Object> response = new HashMap<>();
+                        response.put("token", token);
+                        response.put("username", user.getUsername());
+                        response.put("role", user.getRole());
+                        response.put("userId", user.getId());
+
+                        return ResponseEntity.ok(response);
+                    });
+        } catch (RejectedExecutionException e) {
             Map<String, String> error = new HashMap<>();
-            error.put("message", "Invalid username or password");
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+            error.put("message", "Too many login attempts, please retry shortly");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(error));
+        }
+    }
+
+    private void rehashPassword(User user, String rawPassword) {
+        try {
+            userService.rehashPassword(user, rawPassword);
+        } catch (RejectedExecutionException e) {
+            // Pool is busy; the hash is upgraded on a later login instead
         }
     }
 
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody RegisterRequest registerRequest) {
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody RegisterRequest registerRequest) {
         try {
             if (userService.existsByUsername(registerRequest.getUsername())) {
                 Map<String, String> error = new HashMap<>();
                 error.put("message", "Username already exists");
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error));
             }
 
             if (userService.existsByEmail(registerRequest.getEmail())) {
                 Map<String, String> error = new HashMap<>();
                 error.put("message", "Email already exists");
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error));
             }
 
             User user = new User();
@@ -78,21 +98,34 @@ public class AuthController {
             user.setEmail(registerRequest.getEmail());
             user.setRole(Role.USER);
 
-            User savedUser = userService.registerUser(user);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("message", "User registered successfully");
-            response.put("username", savedUser.getUsername());
-            response.put("userId", savedUser.getId());
-
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
-        } catch (Exception e) {
+            // Like login, the servlet thread is released while BCrypt runs
+            return userService.registerUser(user)
+                    .<ResponseEntity<?>>thenApply(savedUser -> {
+                        Map<String, Object> response = new HashMap<>();
+                        response.put("message", "User registered successfully");
+                        response.put("username", savedUser.getUsername());
+                        response.put("userId", savedUser.getId());
+
+                        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+                    })
+                    .exceptionally(e -> registrationFailed(e instanceof CompletionException ? e.getCause() : e));
+        } catch (RejectedExecutionException e) {
             Map<String, String> error = new HashMap<>();
-            error.put("message", "Registration failed: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+            error.put("message", "Server is busy, please retry shortly");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(error));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(registrationFailed(e));
         }
     }
 
+    private static ResponseEntity<?> registrationFailed(Throwable e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", "Registration failed: " + e.getMessage());
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+    }
+
     static class LoginRequest {
         private String username;
         private String password;
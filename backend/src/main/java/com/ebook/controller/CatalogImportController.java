@@ -0,0 +1,59 @@
+package com.ebook.controller;
+
+import com.ebook.config.AuthenticatedUser;
+import com.ebook.service.CatalogImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/imports")
+@CrossOrigin(origins = "*")
+public class CatalogImportController {
+
+    @Autowired
+    private CatalogImportService catalogImportService;
+
+    /**
+     * Starts an import from the manifest in the request body (CSV with a header row,
+     * or one JSON object per line). File columns are paths relative to the staging
+     * directory. Returns immediately; poll the status endpoint for progress.
+     */
+    @PostMapping
+    public ResponseEntity<?> startImport(@RequestParam(defaultValue = "csv") String format,
+                                         HttpServletRequest request) {
+        try {
+            AuthenticatedUser principal = AuthenticatedUser.current();
+            if (principal == null) {
+                return error(HttpStatus.UNAUTHORIZED, "User not found");
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(catalogImportService.startImport(request.getInputStream(), format, principal.getId()));
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IOException e) {
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to read manifest: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getImport(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(catalogImportService.getStatus(id));
+        } catch (RuntimeException e) {
+            return error(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+
+    private static ResponseEntity<Map<String, String>> error(HttpStatus status, String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", message);
+        return ResponseEntity.status(status).body(error);
+    }
+}
@@ -0,0 +1,56 @@
+package com.ebook.controller;
+
+import com.ebook.model.Ebook;
+import com.ebook.service.BlobStorageService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Strong validators for ebook resources, built from values stored at write time
+ * (the entity version, update timestamp and blob hash), so a conditional request
+ * can be answered without loading sections or touching the file.
+ */
+final class ConditionalResponses {
+
+    // Authenticated content: caches may keep it but must revalidate every time
+    private static final String CACHE_CONTROL = "private, no-cache";
+
+    private ConditionalResponses() {
+    }
+
+    static String metadataEtag(Ebook ebook) {
+        return "\"ebook-" + ebook.getId() + "-" + version(ebook) + "\"";
+    }
+
+    static String sectionsEtag(Ebook ebook) {
+        return "\"sections-" + ebook.getId() + "-" + version(ebook) + "\"";
+    }
+
+    static String fileEtag(Ebook ebook) {
+        String hash = BlobStorageService.contentHash(ebook.getFilePath());
+        return hash != null ? "\"" + hash + "\"" : "\"file-" + ebook.getId() + "-" + version(ebook) + "\"";
+    }
+
+    /**
+     * Evaluates If-None-Match / If-Modified-Since and writes the validators to the
+     * response. When this returns true the status is already 304 and the handler
+     * should return without a body.
+     */
+    static boolean notModified(ServletWebRequest request, String etag, Ebook ebook) {
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        }
+        LocalDateTime lastModified = ebook.getUpdatedAt() != null ? ebook.getUpdatedAt() : ebook.getUploadDate();
+        if (lastModified == null) {
+            return request.checkNotModified(etag);
+        }
+        return request.checkNotModified(etag, lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    private static long version(Ebook ebook) {
+        return ebook.getVersion() != null ? ebook.getVersion() : 0;
+    }
+}
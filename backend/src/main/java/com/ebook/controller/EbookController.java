@@ -1,20 +1,32 @@
 package com.ebook.controller;
 
+import com.ebook.config.AuthenticatedUser;
+import com.ebook.dto.CategoryFacet;
+import com.ebook.dto.EbookSummary;
+import com.ebook.dto.TrendingEbook;
 import com.ebook.model.Ebook;
-import com.ebook.model.User;
 import com.ebook.service.EbookService;
+import com.ebook.service.PopularityService;
+import com.ebook.service.TransferMetrics;
 import com.ebook.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,32 +36,95 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class EbookController {
 
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
     @Autowired
     private EbookService ebookService;
 
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransferMetrics transferMetrics;
+
+    @Autowired
+    private PopularityService popularityService;
+
     @GetMapping
-    public ResponseEntity<List<Ebook>> getAllEbooks() {
-        return ResponseEntity.ok(ebookService.getAllEbooks());
+    public ResponseEntity<?> getAllEbooks(@RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "50") int size) {
+        try {
+            return PageResponses.ok(ebookService.getAllEbooks(cursor, size));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    /**
+     * The whole catalog as NDJSON ({@code Accept: application/x-ndjson}), streamed
+     * from a database cursor for exports and sync jobs.
+     */
+    @GetMapping(produces = NdjsonResponses.NDJSON)
+    public void exportEbooks(HttpServletResponse response) throws IOException {
+        NdjsonResponses.write(response, objectMapper, ebookService::streamAllEbooks);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getEbookById(@PathVariable Long id) {
-        return ebookService.getEbookById(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<?> getEbookById(@PathVariable Long id, ServletWebRequest webRequest) {
+        Ebook ebook = ebookService.getEbookWithSections(id).orElse(null);
+        if (ebook == null) {
+            return ResponseEntity.notFound().build();
+        }
+        popularityService.viewed(id);
+        if (ConditionalResponses.notModified(webRequest, ConditionalResponses.metadataEtag(ebook), ebook)) {
+            return null;
+        }
+        return ResponseEntity.ok(ebook);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Ebook>> searchEbooks(@RequestParam String keyword) {
-        return ResponseEntity.ok(ebookService.searchEbooks(keyword));
+    public ResponseEntity<List<EbookSummary>> searchEbooks(@RequestParam String keyword,
+                                                    @RequestParam(defaultValue = "0") int page,
+                                                    @RequestParam(defaultValue = "20") int size) {
+        Page<EbookSummary> results = ebookService.searchEbooks(keyword, page, size);
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(results.getTotalElements()))
+                .body(results.getContent());
+    }
+
+    /**
+     * Ebook counts per category, optionally limited to one user's ebooks.
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<List<CategoryFacet>> getCategoryFacets(@RequestParam(required = false) Long userId) {
+        return ResponseEntity.ok(ebookService.getCategoryFacets(userId));
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingEbook>> getTrendingEbooks(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(popularityService.getTrending(limit));
     }
 
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<Ebook>> getEbooksByCategory(@PathVariable String category) {
-        return ResponseEntity.ok(ebookService.getEbooksByCategory(category));
+    public ResponseEntity<?> getEbooksByCategory(@PathVariable String category,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(defaultValue = "50") int size) {
+        try {
+            return PageResponses.ok(ebookService.getEbooksByCategory(category, cursor, size));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
     }
 
     @PostMapping
@@ -60,11 +135,9 @@ public class EbookController {
             @RequestParam(value = "description", required = false) String description,
             @RequestParam(value = "file", required = false) MultipartFile file) {
         try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            String username = authentication.getName();
-            User user = userService.findByUsername(username);
+            AuthenticatedUser principal = AuthenticatedUser.current();
 
-            if (user == null) {
+            if (principal == null) {
                 Map<String, String> error = new HashMap<>();
                 error.put("message", "User not found");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
@@ -84,7 +157,7 @@ public class EbookController {
             ebook.setAuthor(author);
             ebook.setCategory(category);
             ebook.setDescription(description);
-            ebook.setUser(user);
+            ebook.setUser(userService.getReference(principal.getId()));
 
             Ebook savedEbook = ebookService.createEbook(ebook, file);
             return ResponseEntity.status(HttpStatus.CREATED).body(savedEbook);
@@ -147,19 +220,45 @@ public class EbookController {
     }
 
     @GetMapping("/{id}/download")
-    public ResponseEntity<?> downloadEbook(@PathVariable Long id) {
+    public ResponseEntity<?> downloadEbook(@PathVariable Long id, HttpServletRequest request,
+                                           ServletWebRequest webRequest) {
         try {
-            byte[] fileContent = ebookService.getEbookFile(id);
             Ebook ebook = ebookService.getEbookById(id)
                     .orElseThrow(() -> new RuntimeException("Ebook not found"));
+            if (ebook.getFilePath() != null
+                    && ConditionalResponses.notModified(webRequest, ConditionalResponses.fileEtag(ebook), ebook)) {
+                return null;
+            }
+            Path file = ebookService.getEbookFile(ebook);
+            long length = Files.size(file);
+            // Range requests are resumes or seeks within a download already counted
+            if (request.getHeader(HttpHeaders.RANGE) == null) {
+                popularityService.downloaded(id);
+            }
 
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_PDF);
             headers.setContentDispositionFormData("attachment", ebook.getTitle() + ".pdf");
+            headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+            // Let the connector sendfile whole files and single ranges so the bytes never touch the heap
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT)) && length >= SENDFILE_MIN_SIZE) {
+                try {
+                    List<HttpRange> ranges = HttpRange.parseRanges(request.getHeader(HttpHeaders.RANGE));
+                    if (ranges.size() <= 1) {
+                        return sendfile(request, file, length, ranges, headers);
+                    }
+                } catch (IllegalArgumentException e) {
+                    headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+                }
+            }
 
+            // Otherwise Spring streams the file, answering Range requests with 206 and resource regions
+            transferMetrics.downloaded("stream", requestedBytes(request, length));
             return ResponseEntity.ok()
                     .headers(headers)
-                    .body(fileContent);
+                    .body(new FileSystemResource(file));
         } catch (IOException e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", "Failed to download ebook: " + e.getMessage());
@@ -171,26 +270,74 @@ public class EbookController {
         }
     }
 
+    private ResponseEntity<?> sendfile(HttpServletRequest request, Path file, long length,
+                                       List<HttpRange> ranges, HttpHeaders headers) throws IOException {
+        HttpStatus status = HttpStatus.OK;
+        long start = 0;
+        long end = length - 1;
+
+        if (!ranges.isEmpty()) {
+            start = ranges.get(0).getRangeStart(length);
+            end = ranges.get(0).getRangeEnd(length);
+            status = HttpStatus.PARTIAL_CONTENT;
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        request.setAttribute(SENDFILE_FILENAME, file.toRealPath().toString());
+        request.setAttribute(SENDFILE_START, start);
+        request.setAttribute(SENDFILE_END, end + 1);
+        headers.setContentLength(end - start + 1);
+        transferMetrics.downloaded("sendfile", end - start + 1);
+
+        return ResponseEntity.status(status).headers(headers).build();
+    }
+
+    private static long requestedBytes(HttpServletRequest request, long length) {
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(request.getHeader(HttpHeaders.RANGE));
+            if (ranges.isEmpty()) {
+                return length;
+            }
+            long total = 0;
+            for (HttpRange range : ranges) {
+                total += range.getRangeEnd(length) - range.getRangeStart(length) + 1;
+            }
+            return total;
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+    }
+
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Ebook>> getEbooksByUserId(@PathVariable Long userId) {
-        return ResponseEntity.ok(ebookService.getEbooksByUserId(userId));
+    public ResponseEntity<?> getEbooksByUserId(@PathVariable Long userId,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "50") int size) {
+        try {
+            return PageResponses.ok(ebookService.getEbooksByUserId(userId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
     }
 
     @GetMapping("/my-ebooks")
-    public ResponseEntity<?> getMyEbooks() {
+    public ResponseEntity<?> getMyEbooks(@RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "50") int size) {
         try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            String username = authentication.getName();
-            User user = userService.findByUsername(username);
+            AuthenticatedUser principal = AuthenticatedUser.current();
 
-            if (user == null) {
+            if (principal == null) {
                 Map<String, String> error = new HashMap<>();
                 error.put("message", "User not found");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
             }
 
-            List<Ebook> ebooks = ebookService.getEbooksByUserId(user.getId());
-            return ResponseEntity.ok(ebooks);
+            return PageResponses.ok(ebookService.getEbooksByUserId(principal.getId(), cursor, size));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", "Failed to fetch ebooks: " + e.getMessage());
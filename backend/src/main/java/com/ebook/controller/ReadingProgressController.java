@@ -0,0 +1,99 @@
+package com.ebook.controller;
+
+import com.ebook.config.AuthenticatedUser;
+import com.ebook.dto.ReadingPosition;
+import com.ebook.service.ReadingProgressService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+@RestController
+@RequestMapping("/api/progress")
+@CrossOrigin(origins = "*")
+public class ReadingProgressController {
+
+    private static final int MAX_RECENT = 100;
+
+    @Autowired
+    private ReadingProgressService readingProgressService;
+
+    @GetMapping
+    public ResponseEntity<?> getRecentPositions(@RequestParam(defaultValue = "20") int limit) {
+        Long userId = currentUserId();
+        if (userId == null) {
+            return error(HttpStatus.UNAUTHORIZED, "User not found");
+        }
+        int size = Math.min(Math.max(limit, 1), MAX_RECENT);
+        return ResponseEntity.ok(readingProgressService.getRecentPositions(userId, size));
+    }
+
+    @GetMapping("/{ebookId}")
+    public ResponseEntity<?> getPosition(@PathVariable Long ebookId) {
+        Long userId = currentUserId();
+        if (userId == null) {
+            return error(HttpStatus.UNAUTHORIZED, "User not found");
+        }
+        return readingProgressService.getPosition(userId, ebookId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Records the caller's position. The write is coalesced and reaches the database
+     * on the next flush, but reads see it immediately.
+     */
+    @PutMapping("/{ebookId}")
+    public ResponseEntity<?> reportPosition(@PathVariable Long ebookId,
+                                            @RequestBody ReportPositionRequest positionRequest) {
+        Long userId = currentUserId();
+        if (userId == null) {
+            return error(HttpStatus.UNAUTHORIZED, "User not found");
+        }
+        try {
+            ReadingPosition position = readingProgressService.report(userId, ebookId,
+                    positionRequest.getSectionId(), positionRequest.getOffset());
+            return ResponseEntity.ok(position);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (NoSuchElementException e) {
+            return error(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+
+    private static Long currentUserId() {
+        AuthenticatedUser principal = AuthenticatedUser.current();
+        return principal != null ? principal.getId() : null;
+    }
+
+    private static ResponseEntity<Map<String, String>> error(HttpStatus status, String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", message);
+        return ResponseEntity.status(status).body(error);
+    }
+
+    static class ReportPositionRequest {
+        private Long sectionId;
+        private int offset;
+
+        public Long getSectionId() {
+            return sectionId;
+        }
+
+        public void setSectionId(Long sectionId) {
+            this.sectionId = sectionId;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public void setOffset(int offset) {
+            this.offset = offset;
+        }
+    }
+}
@@ -1,14 +1,34 @@
 package com.ebook.controller;
 
+import com.ebook.dto.SectionSearchHit;
+import com.ebook.model.CompressedTextConverter;
+import com.ebook.model.Ebook;
 import com.ebook.model.Section;
+import com.ebook.service.EbookService;
 import com.ebook.service.SectionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.PersistenceException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @RestController
@@ -16,12 +36,47 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class SectionController {
 
+    private static final MediaType TEXT_UTF8 = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+    // Matches ORDER BY section_order: unordered sections first, as MySQL sorts NULLs
+    private static final Comparator<Section> READING_ORDER = Comparator
+            .comparing(Section::getSectionOrder, Comparator.nullsFirst(Comparator.<Integer>naturalOrder()))
+            .thenComparing(Section::getId);
+
     @Autowired
     private SectionService sectionService;
 
+    @Autowired
+    private EbookService ebookService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping
-    public ResponseEntity<List<Section>> getAllSections() {
-        return ResponseEntity.ok(sectionService.getAllSections());
+    public ResponseEntity<?> getAllSections(@RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "50") int size) {
+        try {
+            return PageResponses.ok(sectionService.getAllSections(cursor, size));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    @GetMapping(produces = NdjsonResponses.NDJSON)
+    public void exportSections(HttpServletResponse response) throws IOException {
+        NdjsonResponses.write(response, objectMapper, sectionService::streamAllSections);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<SectionSearchHit>> searchSections(@RequestParam String q,
+                                                                 @RequestParam(required = false) Long ebookId,
+                                                                 @RequestParam(defaultValue = "0") int page,
+                                                                 @RequestParam(defaultValue = "20") int size) {
+        Page<SectionSearchHit> results = sectionService.searchSections(q, ebookId, page, size);
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(results.getTotalElements()))
+                .body(results.getContent());
     }
 
     @GetMapping("/{id}")
@@ -31,9 +86,47 @@ public class SectionController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * The section body as plain text. Clients that accept gzip get the stored
+     * compressed bytes with no decompress/recompress step.
+     */
+    @GetMapping("/{id}/content")
+    public ResponseEntity<?> getSectionContent(@PathVariable Long id,
+                                               @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                               String acceptEncoding) {
+        byte[] compressed = sectionService.getCompressedContent(id).orElse(null);
+        if (compressed == null) {
+            return sectionService.getSectionById(id)
+                    .<ResponseEntity<?>>map(section -> ResponseEntity.ok().contentType(TEXT_UTF8).body(""))
+                    .orElse(ResponseEntity.notFound().build());
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(TEXT_UTF8)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .contentLength(compressed.length)
+                    .body(compressed);
+        }
+        return response.body(CompressedTextConverter.decompress(compressed));
+    }
+
     @GetMapping("/ebook/{ebookId}")
-    public ResponseEntity<List<Section>> getSectionsByEbookId(@PathVariable Long ebookId) {
-        return ResponseEntity.ok(sectionService.getSectionsByEbookId(ebookId));
+    public ResponseEntity<List<Section>> getSectionsByEbookId(@PathVariable Long ebookId,
+                                                              ServletWebRequest webRequest) {
+        // The cached ebook carries both the validators and the sections, so a 304 or a
+        // cache hit costs no query and a miss costs one
+        Ebook ebook = ebookService.getEbookWithSections(ebookId).orElse(null);
+        if (ebook == null) {
+            return ResponseEntity.ok(List.of());
+        }
+        if (ConditionalResponses.notModified(webRequest, ConditionalResponses.sectionsEtag(ebook), ebook)) {
+            return null;
+        }
+        List<Section> sections = new ArrayList<>(ebook.getSections());
+        sections.sort(READING_ORDER);
+        return ResponseEntity.ok(sections);
     }
 
     @PostMapping
@@ -41,6 +134,10 @@ public class SectionController {
         try {
             Section savedSection = sectionService.createSection(section);
             return ResponseEntity.status(HttpStatus.CREATED).body(savedSection);
+        } catch (ConstraintViolationException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Failed to create section: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", "Failed to create section: " + e.getMessage());
@@ -48,11 +145,55 @@ public class SectionController {
         }
     }
 
+    @PostMapping("/ebook/{ebookId}/bulk")
+    public ResponseEntity<?> importSections(@PathVariable Long ebookId, HttpServletRequest request) {
+        try {
+            int count = sectionService.importSections(ebookId, request.getInputStream());
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Sections imported successfully");
+            response.put("count", count);
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (IllegalArgumentException | ConstraintViolationException | IOException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Failed to import sections: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        } catch (DataIntegrityViolationException | PersistenceException e) {
+            // A section the database rejects (e.g. a title longer than the column)
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Failed to import sections: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> updateSection(@PathVariable Long id, @RequestBody Section sectionDetails) {
         try {
             Section updatedSection = sectionService.updateSection(id, sectionDetails);
             return ResponseEntity.ok(updatedSection);
+        } catch (ConstraintViolationException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+    }
+
+    @PostMapping("/{id}/move")
+    public ResponseEntity<?> moveSection(@PathVariable Long id, @RequestBody MoveSectionRequest moveRequest) {
+        try {
+            Section movedSection = sectionService.moveSection(id, moveRequest.getBefore(), moveRequest.getAfter());
+            return ResponseEntity.ok(movedSection);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
         } catch (RuntimeException e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", e.getMessage());
@@ -87,4 +228,53 @@ public class SectionController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
         }
     }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (!name.equals("gzip") && !name.equals("*")) {
+                continue;
+            }
+            boolean refused = false;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        refused = Double.parseDouble(parameter.substring(2)) <= 0;
+                    } catch (NumberFormatException e) {
+                        refused = true;
+                    }
+                }
+            }
+            if (!refused) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static class MoveSectionRequest {
+        private Long before;
+        private Long after;
+
+        public Long getBefore() {
+            return before;
+        }
+
+        public void setBefore(Long before) {
+            this.before = before;
+        }
+
+        public Long getAfter() {
+            return after;
+        }
+
+        public void setAfter(Long after) {
+            this.after = after;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,140 @@
+package com.ebook.controller;
+
+import com.ebook.config.AuthenticatedUser;
+import com.ebook.dto.UploadStatus;
+import com.ebook.model.Ebook;
+import com.ebook.service.UploadSessionService;
+import com.ebook.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/uploads")
+@CrossOrigin(origins = "*")
+public class UploadController {
+
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    @Autowired
+    private UserService userService;
+
+    @PostMapping
+    public ResponseEntity<?> createUpload(@RequestBody CreateUploadRequest uploadRequest) {
+        try {
+            UploadStatus status = uploadSessionService.createSession(currentUserId(), uploadRequest.getSize());
+            return ResponseEntity.status(HttpStatus.CREATED).body(status);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            return error(HttpStatus.TOO_MANY_REQUESTS, e.getMessage());
+        } catch (IOException e) {
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to create upload: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getUpload(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(uploadSessionService.getStatus(id, currentUserId()));
+        } catch (RuntimeException e) {
+            return error(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<?> uploadChunk(@PathVariable String id, @RequestParam long offset,
+                                         HttpServletRequest request) {
+        try {
+            return ResponseEntity.ok(uploadSessionService.writeChunk(id, currentUserId(), offset,
+                    request.getInputStream()));
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            return error(HttpStatus.CONFLICT, e.getMessage());
+        } catch (IOException e) {
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to write chunk: " + e.getMessage());
+        } catch (RuntimeException e) {
+            return error(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+
+    @PostMapping("/{id}/commit")
+    public ResponseEntity<?> commitUpload(
+            @PathVariable String id,
+            @RequestParam("title") String title,
+            @RequestParam("author") String author,
+            @RequestParam("category") String category,
+            @RequestParam(value = "description", required = false) String description) {
+        try {
+            Long userId = currentUserId();
+
+            Ebook ebook = new Ebook();
+            ebook.setTitle(title);
+            ebook.setAuthor(author);
+            ebook.setCategory(category);
+            ebook.setDescription(description);
+            ebook.setUser(userService.getReference(userId));
+
+            Ebook savedEbook = uploadSessionService.commit(id, userId, ebook);
+            return ResponseEntity.status(HttpStatus.CREATED).body(savedEbook);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            return error(HttpStatus.CONFLICT, e.getMessage());
+        } catch (IOException | DataAccessException e) {
+            // The session is still there, so the client can retry the commit
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to create ebook: " + e.getMessage());
+        } catch (RuntimeException e) {
+            return error(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> abortUpload(@PathVariable String id) {
+        try {
+            uploadSessionService.abort(id, currentUserId());
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "Upload aborted");
+            return ResponseEntity.ok(response);
+        } catch (IOException e) {
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to abort upload: " + e.getMessage());
+        } catch (RuntimeException e) {
+            return error(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+
+    private static Long currentUserId() {
+        AuthenticatedUser principal = AuthenticatedUser.current();
+        if (principal == null) {
+            throw new RuntimeException("User not found");
+        }
+        return principal.getId();
+    }
+
+    private static ResponseEntity<Map<String, String>> error(HttpStatus status, String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", message);
+        return ResponseEntity.status(status).body(error);
+    }
+
+    static class CreateUploadRequest {
+        private long size;
+
+        public long getSize() {
+            return size;
+        }
+
+        public void setSize(long size) {
+            this.size = size;
+        }
+    }
+}
@@ -1,18 +1,20 @@
 package com.ebook.controller;
 
+import com.ebook.config.AuthenticatedUser;
 import com.ebook.model.User;
 import com.ebook.service.EbookService;
 import com.ebook.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/users")
@@ -26,8 +28,15 @@ public class UserController {
     private EbookService ebookService;
 
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers() {
-        return ResponseEntity.ok(userService.getAllUsers());
+    public ResponseEntity<?> getAllUsers(@RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "50") int size) {
+        try {
+            return PageResponses.ok(userService.getAllUsers(cursor, size));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
     }
 
     @GetMapping("/{id}")
@@ -40,17 +49,15 @@ public class UserController {
     @GetMapping("/me")
     public ResponseEntity<?> getCurrentUser() {
         try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            String username = authentication.getName();
-            User user = userService.findByUsername(username);
+            AuthenticatedUser principal = AuthenticatedUser.current();
 
-            if (user == null) {
+            if (principal == null) {
                 Map<String, String> error = new HashMap<>();
                 error.put("message", "User not found");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
             }
 
-            return ResponseEntity.ok(user);
+            return ResponseEntity.ok(principal.toUser());
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", "Failed to fetch user: " + e.getMessage());
@@ -59,9 +66,15 @@ public class UserController {
     }
 
     @GetMapping("/{id}/ebooks")
-    public ResponseEntity<?> getUserEbooks(@PathVariable Long id) {
+    public ResponseEntity<?> getUserEbooks(@PathVariable Long id,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "50") int size) {
         try {
-            return ResponseEntity.ok(ebookService.getEbooksByUserId(id));
+            return PageResponses.ok(ebookService.getEbooksByUserId(id, cursor, size));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", "Failed to fetch ebooks: " + e.getMessage());
@@ -70,17 +83,28 @@ public class UserController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateUser(@PathVariable Long id, @RequestBody User userDetails) {
+    public CompletableFuture<ResponseEntity<?>> updateUser(@PathVariable Long id, @RequestBody User userDetails) {
         try {
-            User updatedUser = userService.updateUser(id, userDetails);
-            return ResponseEntity.ok(updatedUser);
-        } catch (RuntimeException e) {
+            return userService.updateUser(id, userDetails)
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                    .exceptionally(e -> notFound(e instanceof CompletionException ? e.getCause() : e));
+        } catch (RejectedExecutionException e) {
             Map<String, String> error = new HashMap<>();
-            error.put("message", e.getMessage());
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+            error.put("message", "Server is busy, please retry shortly");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(error));
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(notFound(e));
         }
     }
 
+    private static ResponseEntity<?> notFound(Throwable e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", e.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteUser(@PathVariable Long id) {
         try {
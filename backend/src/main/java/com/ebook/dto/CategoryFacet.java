@@ -0,0 +1,11 @@
+package com.ebook.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CategoryFacet {
+    private String category;
+    private long count;
+}
@@ -0,0 +1,19 @@
+package com.ebook.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class EbookSummary {
+    private Long id;
+    private String title;
+    private String author;
+    private String category;
+    private String description;
+    private String filePath;
+    private LocalDateTime uploadDate;
+    private Long sectionCount;
+}
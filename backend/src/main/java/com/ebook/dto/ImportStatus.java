@@ -0,0 +1,21 @@
+package com.ebook.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ImportStatus {
+    private String importId;
+    private String state;
+    private long rowsRead;
+    private long imported;
+    private long failed;
+    // First errors only, as "line N: message"
+    private List<String> errors;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
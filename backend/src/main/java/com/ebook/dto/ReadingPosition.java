@@ -0,0 +1,15 @@
+package com.ebook.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class ReadingPosition {
+    private Long ebookId;
+    private Long sectionId;
+    private int offset;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,14 @@
+package com.ebook.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SectionSearchHit {
+    private Long ebookId;
+    private Long sectionId;
+    private String sectionTitle;
+    private String snippet;
+    private double score;
+}
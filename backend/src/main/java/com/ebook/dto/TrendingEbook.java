@@ -0,0 +1,16 @@
+package com.ebook.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TrendingEbook {
+    private Long id;
+    private String title;
+    private String author;
+    private String category;
+    private double score;
+    private long views;
+    private long downloads;
+}
@@ -0,0 +1,17 @@
+package com.ebook.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class UploadStatus {
+    private String uploadId;
+    private long size;
+    private long receivedBytes;
+    // Received byte ranges as [start, end) pairs, merged and in order
+    private List<long[]> received;
+    private boolean complete;
+}
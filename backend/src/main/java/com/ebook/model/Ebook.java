@@ -9,11 +9,15 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "ebooks")
+@Table(name = "ebooks", indexes = {
+        @Index(name = "idx_ebooks_category_id", columnList = "category, id"),
+        @Index(name = "idx_ebooks_user_id", columnList = "user_id, id")
+})
 @Data
 public class Ebook {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ebook_seq")
+    @SequenceGenerator(name = "ebook_seq", sequenceName = "ebook_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -32,6 +36,12 @@ public class Ebook {
 
     private LocalDateTime uploadDate;
 
+    // Both are maintained on every write, sections included, and back the HTTP validators
+    @Version
+    private Long version;
+
+    private LocalDateTime updatedAt;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     @JsonIgnore
@@ -39,4 +49,10 @@ public class Ebook {
 
     @OneToMany(mappedBy = "ebook", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Section> sections = new ArrayList<>();
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = LocalDateTime.now();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.ebook.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Lifetime view and download totals, kept out of the ebooks row so counter flushes
+ * neither contend with edits nor bump the ebook's version.
+ */
+@Entity
+@Table(name = "ebook_stats")
+@Data
+public class EbookStats {
+    @Id
+    @Column(name = "ebook_id")
+    private Long ebookId;
+
+    private long views;
+
+    private long downloads;
+}
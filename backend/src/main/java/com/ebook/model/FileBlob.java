@@ -0,0 +1,21 @@
+package com.ebook.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "file_blobs")
+@Data
+public class FileBlob {
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    private long size;
+
+    private int refCount;
+
+    private LocalDateTime createdAt;
+}
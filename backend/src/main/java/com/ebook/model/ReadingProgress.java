@@ -0,0 +1,51 @@
+package com.ebook.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * Where a user stopped reading an ebook. Rows are written in batches by
+ * ReadingProgressService; the foreign keys clean up after deleted users, ebooks
+ * and sections in the database so those deletes need not know about this table.
+ */
+@Entity
+@Table(name = "reading_progress", indexes = {
+        @Index(name = "idx_reading_progress_user_updated", columnList = "user_id, updated_at")
+})
+@Data
+public class ReadingProgress {
+    @EmbeddedId
+    private ReadingProgressId id;
+
+    @MapsId("userId")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    private User user;
+
+    @MapsId("ebookId")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "ebook_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    private Ebook ebook;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "section_id")
+    @OnDelete(action = OnDeleteAction.SET_NULL)
+    @JsonIgnore
+    private Section section;
+
+    // "offset" is reserved in SQL
+    @Column(name = "position_offset", nullable = false)
+    private int offset;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -2,22 +2,36 @@ package com.ebook.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 @Entity
-@Table(name = "sections")
+@Table(name = "sections", indexes = {
+        @Index(name = "idx_sections_ebook_order", columnList = "ebook_id, section_order")
+})
 @Data
 public class Section {
+    public static final int MAX_CONTENT_LENGTH = 10000;
+
+    // Pooled sequence (a table on MySQL) so inserts can be JDBC-batched; IDENTITY forbids that
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "section_seq")
+    @SequenceGenerator(name = "section_seq", sequenceName = "section_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
     private String title;
 
-    @Column(length = 10000)
+    // Gzip-compressed at rest; SectionController serves the stored bytes directly to gzip clients.
+    // The LOB column has no useful length, so the bound on the text is checked on persist and update
+    @Lob
+    @Size(max = MAX_CONTENT_LENGTH)
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "content")
     private String content;
 
+    // Sparse key: new sections are appended SectionService.ORDER_GAP apart so a move can take a midpoint
+    @Column(name = "section_order")
     private Integer sectionOrder;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -1,5 +1,6 @@
 package com.ebook.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 
@@ -29,6 +30,7 @@ public class User {
     private Role role;
 
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
+    @JsonIgnore
     private List<Ebook> ebooks = new ArrayList<>();
 
     private LocalDateTime createdAt = LocalDateTime.now();
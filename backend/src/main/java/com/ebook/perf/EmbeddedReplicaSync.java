@@ -0,0 +1,81 @@
+package com.ebook.perf;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Stands in for replication between the two embedded H2 instances of the
+ * {@code replica} profile: every sync interval the primary is scripted out and
+ * replayed into the replica, so the replica trails the primary by up to one
+ * interval. Replica readers are paused while the copy is replaced.
+ */
+@Component
+@Profile("replica")
+public class EmbeddedReplicaSync {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddedReplicaSync.class);
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Value("${app.datasource.replica.urls}")
+    private String[] replicaUrls;
+
+    @Value("${spring.datasource.username:sa}")
+    private String username;
+
+    @Value("${spring.datasource.password:}")
+    private String password;
+
+    @Scheduled(fixedDelayString = "${app.perf.replica.sync-interval:PT2S}")
+    public void sync() {
+        long start = System.nanoTime();
+        Path script = null;
+        try {
+            script = Files.createTempFile("replica-sync-", ".sql");
+            try (Connection source = primaryDataSource.getConnection();
+                 Statement statement = source.createStatement()) {
+                statement.execute("SCRIPT TO '" + script + "'");
+            }
+            for (String url : replicaUrls) {
+                try (Connection target = DriverManager.getConnection(url.trim(), username, password);
+                     Statement statement = target.createStatement()) {
+                    statement.execute("SET EXCLUSIVE 1");
+                    try {
+                        statement.execute("DROP ALL OBJECTS");
+                        statement.execute("RUNSCRIPT FROM '" + script + "'");
+                    } finally {
+                        statement.execute("SET EXCLUSIVE 0");
+                    }
+                }
+            }
+            log.debug("Synced replicas in {} ms", (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | SQLException e) {
+            log.warn("Replica sync failed: {}", e.getMessage());
+        } finally {
+            if (script != null) {
+                try {
+                    Files.deleteIfExists(script);
+                } catch (IOException e) {
+                    log.debug("Could not delete {}", script);
+                }
+            }
+        }
+    }
+}
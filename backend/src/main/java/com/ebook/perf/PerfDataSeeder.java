@@ -0,0 +1,181 @@
+package com.ebook.perf;
+
+import com.ebook.model.Ebook;
+import com.ebook.model.FileBlob;
+import com.ebook.model.Role;
+import com.ebook.model.Section;
+import com.ebook.model.User;
+import com.ebook.repository.EbookRepository;
+import com.ebook.repository.FileBlobRepository;
+import com.ebook.repository.UserRepository;
+import com.ebook.service.BlobStorageService;
+import com.ebook.service.SectionService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Fills the embedded database of the {@code perf} profile with a synthetic
+ * catalog. Runs before the search indexes and facets rebuild on startup, so they
+ * pick the seeded rows up. Users are {@code reader1..readerN}, all sharing the
+ * configured password.
+ */
+@Component
+@Profile("perf")
+public class PerfDataSeeder {
+
+    private static final Logger log = LoggerFactory.getLogger(PerfDataSeeder.class);
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EbookRepository ebookRepository;
+
+    @Autowired
+    private FileBlobRepository fileBlobRepository;
+
+    @Autowired
+    private BlobStorageService blobStorageService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.perf.seed.random-seed:42}")
+    private long randomSeed;
+
+    @Value("${app.perf.seed.users:50}")
+    private int users;
+
+    @Value("${app.perf.seed.password:perf-password}")
+    private String password;
+
+    @Value("${app.perf.seed.ebooks:2000}")
+    private int ebooks;
+
+    @Value("${app.perf.seed.sections-per-ebook:10}")
+    private int sectionsPerEbook;
+
+    @Value("${app.perf.seed.section-chars:3000}")
+    private int sectionChars;
+
+    @Value("${app.perf.seed.blobs:20}")
+    private int blobs;
+
+    @Value("${app.perf.seed.blob-size:1MB}")
+    private DataSize blobSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void seed() throws IOException {
+        if (ebookRepository.count() > 0) {
+            log.info("Catalog already has ebooks; skipping perf seeding");
+            return;
+        }
+
+        long start = System.nanoTime();
+        Random random = new Random(randomSeed);
+
+        String passwordHash = passwordEncoder.encode(password);
+        List<User> owners = new ArrayList<>(users);
+        for (int i = 1; i <= users; i++) {
+            User user = new User();
+            user.setUsername("reader" + i);
+            user.setEmail("reader" + i + "@perf.local");
+            user.setPassword(passwordHash);
+            user.setRole(Role.USER);
+            owners.add(user);
+        }
+        owners = userRepository.saveAll(owners);
+
+        List<String> filePaths = new ArrayList<>(blobs);
+        for (int i = 0; i < blobs; i++) {
+            filePaths.add(blobStorageService.store(new ByteArrayInputStream(pdf(random, i))));
+        }
+
+        Map<String, Integer> references = new HashMap<>();
+        for (int first = 0; first < ebooks; first += BATCH_SIZE) {
+            List<Ebook> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = first; i < Math.min(first + BATCH_SIZE, ebooks); i++) {
+                Ebook ebook = ebook(random, owners.get(random.nextInt(owners.size())));
+                if (!filePaths.isEmpty()) {
+                    ebook.setFilePath(filePaths.get(random.nextInt(filePaths.size())));
+                    references.merge(ebook.getFilePath(), 1, Integer::sum);
+                }
+                batch.add(ebook);
+            }
+            transactionTemplate.executeWithoutResult(status -> ebookRepository.saveAll(batch));
+        }
+
+        // Each stored blob starts with one reference; give it one per seeded ebook instead
+        transactionTemplate.executeWithoutResult(status -> references.forEach((filePath, count) -> {
+            FileBlob blob = fileBlobRepository.findForUpdate(BlobStorageService.contentHash(filePath)).orElse(null);
+            if (blob != null) {
+                blob.setRefCount(count);
+            }
+        }));
+
+        log.info("Seeded {} users, {} ebooks, {} sections and {} blobs in {} ms", users, ebooks,
+                (long) ebooks * sectionsPerEbook, blobs, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private Ebook ebook(Random random, User owner) {
+        Ebook ebook = new Ebook();
+        ebook.setTitle(SyntheticText.title(random));
+        ebook.setAuthor(SyntheticText.title(random));
+        ebook.setCategory(SyntheticText.category(random));
+        ebook.setDescription(SyntheticText.prose(random, 300));
+        ebook.setUploadDate(LocalDateTime.now().minusDays(random.nextInt(365)));
+        ebook.setUser(owner);
+        for (int i = 0; i < sectionsPerEbook; i++) {
+            Section section = new Section();
+            section.setTitle("Chapter " + (i + 1) + ": " + SyntheticText.title(random));
+            section.setContent(SyntheticText.prose(random, sectionChars));
+            section.setSectionOrder((i + 1) * SectionService.ORDER_GAP);
+            section.setEbook(ebook);
+            ebook.getSections().add(section);
+        }
+        return ebook;
+    }
+
+    private byte[] pdf(Random random, int index) {
+        byte[] content = new byte[(int) blobSize.toBytes()];
+        random.nextBytes(content);
+        byte[] header = ("%PDF-1.7\n% perf blob " + index + "\n").getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(header, 0, content, 0, Math.min(header.length, content.length));
+        return content;
+    }
+}
@@ -0,0 +1,83 @@
+package com.ebook.perf;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Deterministic English-like text for seeded catalogs and benchmarks. Words come
+ * from a small vocabulary with Zipf-distributed frequencies, which is close enough
+ * to real prose for tokenizer, index and compression behaviour.
+ */
+public final class SyntheticText {
+
+    private static final String[] VOCABULARY = (
+            "the of and to a in that it was he his for as with on i had you at be her by not this " +
+            "but from or she have which they all were we an one my so said their been there would " +
+            "when what them who him if no more into out up could some than then its time only will " +
+            "about two like other now over see first know little after way man before well old " +
+            "great where very through down must even back any long people such good came made here " +
+            "life world house night never again might day under still eyes last thought hand light " +
+            "dark king city river sea war ship mountain forest dragon queen letter history science " +
+            "garden winter summer fire stone silver shadow voice door road journey secret empire " +
+            "captain doctor mother father brother sister morning evening window island castle music " +
+            "memory question answer silence storm harbour village kingdom library machine engine")
+            .split(" ");
+    private static final String[] CATEGORIES = {
+            "Fiction", "History", "Science", "Fantasy", "Biography", "Poetry", "Travel", "Philosophy"
+    };
+    private static final double[] CUMULATIVE_WEIGHTS = new double[VOCABULARY.length];
+
+    static {
+        double total = 0;
+        for (int rank = 0; rank < VOCABULARY.length; rank++) {
+            total += 1.0 / (rank + 1);
+            CUMULATIVE_WEIGHTS[rank] = total;
+        }
+        for (int rank = 0; rank < VOCABULARY.length; rank++) {
+            CUMULATIVE_WEIGHTS[rank] /= total;
+        }
+    }
+
+    private SyntheticText() {
+    }
+
+    public static String word(Random random) {
+        int index = Arrays.binarySearch(CUMULATIVE_WEIGHTS, random.nextDouble());
+        return VOCABULARY[Math.min(index < 0 ? -index - 1 : index, VOCABULARY.length - 1)];
+    }
+
+    public static String category(Random random) {
+        return CATEGORIES[random.nextInt(CATEGORIES.length)];
+    }
+
+    public static String title(Random random) {
+        StringBuilder title = new StringBuilder();
+        int words = 2 + random.nextInt(4);
+        for (int i = 0; i < words; i++) {
+            title.append(i == 0 ? "" : " ").append(capitalize(word(random)));
+        }
+        return title.toString();
+    }
+
+    /** Prose of {@code chars} characters: sentences of 6-24 words, paragraphs of 3-8 sentences. */
+    public static String prose(Random random, int chars) {
+        StringBuilder text = new StringBuilder(chars + 200);
+        while (text.length() < chars) {
+            int sentences = 3 + random.nextInt(6);
+            for (int s = 0; s < sentences && text.length() < chars; s++) {
+                int words = 6 + random.nextInt(19);
+                for (int w = 0; w < words; w++) {
+                    String word = word(random);
+                    text.append(w == 0 ? capitalize(word) : word)
+                            .append(w == words - 1 ? ". " : (random.nextInt(12) == 0 ? ", " : " "));
+                }
+            }
+            text.append("\n\n");
+        }
+        return text.substring(0, Math.min(text.length(), chars));
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
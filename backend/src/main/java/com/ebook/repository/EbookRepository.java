@@ -1,24 +1,79 @@
 package com.ebook.repository;
 
+import com.ebook.dto.EbookSummary;
 import com.ebook.model.Ebook;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface EbookRepository extends JpaRepository<Ebook, Long> {
 
+    // Listing rows carry only summary columns and a correlated section count, never the sections
+    String SUMMARY_SELECT = "SELECT new com.ebook.dto.EbookSummary(e.id, e.title, e.author, e.category, " +
+            "e.description, e.filePath, e.uploadDate, (SELECT COUNT(s) FROM Section s WHERE s.ebook = e)) " +
+            "FROM Ebook e ";
+
+    // Rows per round trip for the Stream queries here and in SectionRepository
+    String STREAM_FETCH_SIZE = "500";
+
     List<Ebook> findByCategory(String category);
 
     List<Ebook> findByUserId(Long userId);
 
-    @Query("SELECT e FROM Ebook e WHERE " +
-            "LOWER(e.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(e.author) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(e.category) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(e.description) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    List<Ebook> searchEbooks(@Param("keyword") String keyword);
-}
\ No newline at end of file
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Ebook e WHERE e.id = :id")
+    Optional<Ebook> findForUpdate(@Param("id") Long id);
+
+    // Section writes change the ebook's representation, so they bump its version too
+    @Modifying
+    @Transactional
+    @Query("UPDATE Ebook e SET e.version = e.version + 1, e.updatedAt = :now WHERE e.id = :id")
+    int touch(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Query("SELECT e.category, e.user.id, COUNT(e) FROM Ebook e GROUP BY e.category, e.user.id")
+    List<Object[]> countByCategoryAndUser();
+
+    @Query("SELECT e.id FROM Ebook e WHERE e.user.id = :userId")
+    List<Long> findIdsByUserId(@Param("userId") Long userId);
+
+    @EntityGraph(attributePaths = "sections")
+    Optional<Ebook> findWithSectionsById(Long id);
+
+    List<Ebook> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    @Query(SUMMARY_SELECT + "WHERE e.id > :afterId ORDER BY e.id")
+    List<EbookSummary> findSummaries(@Param("afterId") Long afterId, Limit limit);
+
+    // Rows are pulled from a server-side cursor (useCursorFetch) STREAM_FETCH_SIZE at a time
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(SUMMARY_SELECT + "ORDER BY e.id")
+    Stream<EbookSummary> streamSummaries();
+
+    @Query(SUMMARY_SELECT + "WHERE e.category = :category AND e.id > :afterId ORDER BY e.id")
+    List<EbookSummary> findSummariesByCategory(@Param("category") String category,
+                                               @Param("afterId") Long afterId, Limit limit);
+
+    @Query(SUMMARY_SELECT + "WHERE e.user.id = :userId AND e.id > :afterId ORDER BY e.id")
+    List<EbookSummary> findSummariesByUserId(@Param("userId") Long userId,
+                                             @Param("afterId") Long afterId, Limit limit);
+
+    @Query(SUMMARY_SELECT + "WHERE e.id IN :ids")
+    List<EbookSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+}
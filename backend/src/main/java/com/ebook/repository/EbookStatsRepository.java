@@ -0,0 +1,9 @@
+package com.ebook.repository;
+
+import com.ebook.model.EbookStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EbookStatsRepository extends JpaRepository<EbookStats, Long> {
+}
@@ -0,0 +1,26 @@
+package com.ebook.repository;
+
+import com.ebook.dto.ReadingPosition;
+import com.ebook.model.ReadingProgress;
+import com.ebook.model.ReadingProgressId;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReadingProgressRepository extends JpaRepository<ReadingProgress, ReadingProgressId> {
+
+    String POSITION_SELECT = "SELECT new com.ebook.dto.ReadingPosition("
+            + "p.id.ebookId, s.id, p.offset, p.updatedAt) FROM ReadingProgress p LEFT JOIN p.section s ";
+
+    @Query(POSITION_SELECT + "WHERE p.id.userId = :userId AND p.id.ebookId = :ebookId")
+    Optional<ReadingPosition> findPosition(@Param("userId") Long userId, @Param("ebookId") Long ebookId);
+
+    @Query(POSITION_SELECT + "WHERE p.id.userId = :userId ORDER BY p.updatedAt DESC")
+    List<ReadingPosition> findRecentPositions(@Param("userId") Long userId, Limit limit);
+}
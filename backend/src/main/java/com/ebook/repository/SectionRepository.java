@@ -1,13 +1,41 @@
 package com.ebook.repository;
 
 import com.ebook.model.Section;
+import org.springframework.data.domain.Limit;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface SectionRepository extends JpaRepository<Section, Long> {
     List<Section> findByEbookId(Long ebookId);
     List<Section> findByEbookIdOrderBySectionOrderAsc(Long ebookId);
+    List<Section> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EbookRepository.STREAM_FETCH_SIZE))
+    @Query("SELECT s FROM Section s ORDER BY s.id")
+    Stream<Section> streamAll();
+
+    Optional<Section> findFirstByEbookIdAndSectionOrderLessThanAndIdNotOrderBySectionOrderDesc(
+            Long ebookId, Integer sectionOrder, Long excludedId);
+
+    Optional<Section> findFirstByEbookIdAndSectionOrderGreaterThanAndIdNotOrderBySectionOrderAsc(
+            Long ebookId, Integer sectionOrder, Long excludedId);
+
+    // Native so the converter is bypassed and the stored gzip bytes come back untouched
+    @Query(value = "SELECT content FROM sections WHERE id = :id", nativeQuery = true)
+    Optional<Object> findStoredContentById(@Param("id") Long id);
+
+    boolean existsByEbookIdAndSectionOrderIsNull(Long ebookId);
+
+    @Query("SELECT MAX(s.sectionOrder) FROM Section s WHERE s.ebook.id = :ebookId")
+    Integer findMaxSectionOrder(@Param("ebookId") Long ebookId);
 }
\ No newline at end of file
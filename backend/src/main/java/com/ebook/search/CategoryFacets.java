@@ -0,0 +1,106 @@
+package com.ebook.search;
+
+import com.ebook.dto.CategoryFacet;
+import com.ebook.repository.EbookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ebook counts per category, overall and per owner, kept in memory so the facet
+ * endpoint costs O(categories). Counts are rebuilt from one GROUP BY at startup
+ * and adjusted by EbookService after each write commits.
+ */
+@Component
+public class CategoryFacets {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryFacets.class);
+
+    @Autowired
+    private EbookRepository ebookRepository;
+
+    private final Map<String, Long> totals = new ConcurrentHashMap<>();
+    private final Map<Long, Map<String, Long>> totalsByUser = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        totals.clear();
+        totalsByUser.clear();
+        for (Object[] row : ebookRepository.countByCategoryAndUser()) {
+            apply((String) row[0], (Long) row[1], (Long) row[2]);
+        }
+        log.info("Category facets rebuilt with {} categories", totals.size());
+    }
+
+    public void added(String category, Long userId) {
+        afterCommit(() -> apply(category, userId, 1));
+    }
+
+    public void removed(String category, Long userId) {
+        afterCommit(() -> apply(category, userId, -1));
+    }
+
+    public void moved(String fromCategory, String toCategory, Long userId) {
+        if (fromCategory != null && fromCategory.equals(toCategory)) {
+            return;
+        }
+        afterCommit(() -> {
+            apply(fromCategory, userId, -1);
+            apply(toCategory, userId, 1);
+        });
+    }
+
+    /**
+     * Categories ordered by descending count, then name. With a user id only that
+     * user's ebooks are counted.
+     */
+    public List<CategoryFacet> facets(Long userId) {
+        Map<String, Long> counts = userId == null ? totals : totalsByUser.getOrDefault(userId, Map.of());
+        List<CategoryFacet> facets = new ArrayList<>(counts.size());
+        counts.forEach((category, count) -> facets.add(new CategoryFacet(category, count)));
+        facets.sort(Comparator.comparingLong(CategoryFacet::getCount).reversed()
+                .thenComparing(CategoryFacet::getCategory));
+        return facets;
+    }
+
+    private void apply(String category, Long userId, long delta) {
+        if (category == null) {
+            return;
+        }
+        totals.compute(category, (key, count) -> adjust(count, delta));
+        if (userId != null) {
+            totalsByUser.computeIfAbsent(userId, key -> new ConcurrentHashMap<>())
+                    .compute(category, (key, count) -> adjust(count, delta));
+        }
+    }
+
+    private static Long adjust(Long count, long delta) {
+        long adjusted = (count == null ? 0 : count) + delta;
+        return adjusted > 0 ? adjusted : null;
+    }
+
+    // Inside a transaction the counts only move once it commits; otherwise the write already has
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
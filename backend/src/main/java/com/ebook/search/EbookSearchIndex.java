@@ -0,0 +1,276 @@
+package com.ebook.search;
+
+import com.ebook.model.Ebook;
+import com.ebook.repository.EbookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory inverted index over ebook title, author, category and description,
+ * ranked with BM25. The last query token also matches as a prefix so partial
+ * words typed into the search box still find results.
+ *
+ * <p>A rebuild loads a new index off to the side, keyset-paging through the
+ * ebooks, and swaps it in at the end; searches keep using the old one meanwhile.
+ * Changes indexed while the rebuild reads are replayed onto the new index first.
+ */
+@Component
+public class EbookSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(EbookSearchIndex.class);
+
+    private static final float TITLE_BOOST = 3.0f;
+    private static final float AUTHOR_BOOST = 2.0f;
+    private static final float CATEGORY_BOOST = 1.5f;
+    private static final float DESCRIPTION_BOOST = 1.0f;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PREFIX_PENALTY = 0.5;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private EbookRepository ebookRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+    // Non-null while a rebuild is loading; replayed onto the new index before the swap
+    private List<Consumer<Index>> changedDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Index fresh = null;
+        try {
+            fresh = load();
+        } finally {
+            swapIn(fresh);
+        }
+
+        log.info("Search index rebuilt with {} ebooks and {} terms", fresh.documents.size(), fresh.postings.size());
+    }
+
+    public void index(Ebook ebook) {
+        Long ebookId = ebook.getId();
+        Map<String, Float> terms = terms(ebook);
+        change(index -> index.put(ebookId, terms));
+    }
+
+    public void remove(Long ebookId) {
+        change(index -> index.remove(ebookId));
+    }
+
+    public Result search(String query, long offset, int limit) {
+        Set<String> tokens = new LinkedHashSet<>(Tokenizer.tokenize(query));
+        if (tokens.isEmpty() || limit <= 0) {
+            return new Result(List.of(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            Index current = index;
+            if (current.documents.isEmpty()) {
+                return new Result(List.of(), 0);
+            }
+
+            double averageLength = current.totalLength / current.documents.size();
+            Map<Long, Double> scores = new HashMap<>();
+            String last = tokens.stream().reduce((first, second) -> second).get();
+
+            for (String token : tokens) {
+                score(current, token, 1.0, averageLength, scores);
+                if (token.equals(last)) {
+                    int expansions = 0;
+                    for (String term : current.postings.subMap(token, false, token + Character.MAX_VALUE, false)
+                            .keySet()) {
+                        if (expansions++ >= MAX_PREFIX_EXPANSIONS) {
+                            break;
+                        }
+                        score(current, term, PREFIX_PENALTY, averageLength, scores);
+                    }
+                }
+            }
+
+            if (offset >= scores.size()) {
+                return new Result(List.of(), scores.size());
+            }
+            return new Result(topK(scores, (int) offset, limit), scores.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void score(Index index, String term, double weight, double averageLength,
+                              Map<Long, Double> scores) {
+        Map<Long, Float> postingList = index.postings.get(term);
+        if (postingList == null) {
+            return;
+        }
+
+        int documentCount = index.documents.size();
+        int documentFrequency = postingList.size();
+        double idf = Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+
+        for (Map.Entry<Long, Float> posting : postingList.entrySet()) {
+            double frequency = posting.getValue();
+            double norm = K1 * (1 - B + B * index.documents.get(posting.getKey()).length() / averageLength);
+            double score = weight * idf * frequency * (K1 + 1) / (frequency + norm);
+            scores.merge(posting.getKey(), score, Double::sum);
+        }
+    }
+
+    private List<Long> topK(Map<Long, Double> scores, int offset, int limit) {
+        Comparator<Map.Entry<Long, Double>> ranking = Map.Entry.<Long, Double>comparingByValue()
+                .reversed()
+                .thenComparing(Map.Entry.comparingByKey());
+
+        // Min-heap on ranking keeps only the best offset + limit hits
+        int k = (int) Math.min((long) offset + limit, scores.size());
+        PriorityQueue<Map.Entry<Long, Double>> heap = new PriorityQueue<>(ranking.reversed());
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(heap);
+        ranked.sort(ranking);
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = offset; i < ranked.size(); i++) {
+            ids.add(ranked.get(i).getKey());
+        }
+        return ids;
+    }
+
+    private Index load() {
+        Index fresh = new Index();
+        long lastId = 0;
+        List<Ebook> batch;
+        do {
+            batch = ebookRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(REBUILD_BATCH_SIZE));
+            for (Ebook ebook : batch) {
+                fresh.put(ebook.getId(), terms(ebook));
+                lastId = ebook.getId();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        return fresh;
+    }
+
+    /** Replays the changes recorded during the load and swaps; a failed load (null) keeps the old index. */
+    private void swapIn(Index fresh) {
+        lock.writeLock().lock();
+        try {
+            if (fresh != null) {
+                changedDuringRebuild.forEach(change -> change.accept(fresh));
+                index = fresh;
+            }
+            changedDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void change(Consumer<Index> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Map<String, Float> terms(Ebook ebook) {
+        Map<String, Float> terms = new HashMap<>();
+        addField(terms, ebook.getTitle(), TITLE_BOOST);
+        addField(terms, ebook.getAuthor(), AUTHOR_BOOST);
+        addField(terms, ebook.getCategory(), CATEGORY_BOOST);
+        addField(terms, ebook.getDescription(), DESCRIPTION_BOOST);
+        return terms;
+    }
+
+    private static void addField(Map<String, Float> terms, String text, float boost) {
+        for (String token : Tokenizer.tokenize(text)) {
+            terms.merge(token, boost, Float::sum);
+        }
+    }
+
+    private static final class Index {
+        private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+        private final Map<Long, Document> documents = new HashMap<>();
+        private double totalLength;
+
+        void put(Long ebookId, Map<String, Float> terms) {
+            remove(ebookId);
+            float length = 0;
+            for (Map.Entry<String, Float> term : terms.entrySet()) {
+                postings.computeIfAbsent(term.getKey(), k -> new HashMap<>()).put(ebookId, term.getValue());
+                length += term.getValue();
+            }
+            documents.put(ebookId, new Document(terms.keySet(), length));
+            totalLength += length;
+        }
+
+        void remove(Long ebookId) {
+            Document previous = documents.remove(ebookId);
+            if (previous == null) {
+                return;
+            }
+
+            for (String term : previous.terms()) {
+                Map<Long, Float> postingList = postings.get(term);
+                if (postingList != null) {
+                    postingList.remove(ebookId);
+                    if (postingList.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+            totalLength -= previous.length();
+        }
+    }
+
+    private record Document(Set<String> terms, float length) {
+    }
+
+    public record Result(List<Long> ids, long total) {
+    }
+}
@@ -0,0 +1,70 @@
+package com.ebook.search;
+
+import java.util.Arrays;
+
+/**
+ * Postings for one term kept in flat int arrays: ascending doc ids, and for each
+ * doc a slice of ascending token positions starting at {@code offsets[i]}.
+ */
+final class PositionalPostings {
+
+    private int[] docs = new int[2];
+    private int[] offsets = new int[3];
+    private int[] positions = new int[4];
+    private int size;
+
+    void add(int doc, int[] docPositions, int count) {
+        if (size + 1 >= docs.length) {
+            docs = Arrays.copyOf(docs, docs.length * 2);
+            offsets = Arrays.copyOf(offsets, docs.length + 1);
+        }
+        int start = offsets[size];
+        if (start + count > positions.length) {
+            positions = Arrays.copyOf(positions, Math.max(positions.length * 2, start + count));
+        }
+
+        System.arraycopy(docPositions, 0, positions, start, count);
+        docs[size] = doc;
+        offsets[size + 1] = start + count;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int doc(int index) {
+        return docs[index];
+    }
+
+    int frequency(int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    int position(int index, int occurrence) {
+        return positions[offsets[index] + occurrence];
+    }
+
+    int indexOf(int doc) {
+        return Arrays.binarySearch(docs, 0, size, doc);
+    }
+
+    boolean containsPosition(int index, int position) {
+        return Arrays.binarySearch(positions, offsets[index], offsets[index + 1], position) >= 0;
+    }
+
+    /**
+     * Rewrites the postings through {@code remap} (old doc id to new doc id, or -1
+     * for dropped docs). The remap must preserve order so docs stay sorted.
+     */
+    PositionalPostings compact(int[] remap) {
+        PositionalPostings compacted = new PositionalPostings();
+        for (int i = 0; i < size; i++) {
+            int doc = remap[docs[i]];
+            if (doc >= 0) {
+                compacted.add(doc, Arrays.copyOfRange(positions, offsets[i], offsets[i + 1]), frequency(i));
+            }
+        }
+        return compacted;
+    }
+}
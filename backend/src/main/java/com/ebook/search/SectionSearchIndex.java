@@ -0,0 +1,353 @@
+package com.ebook.search;
+
+import com.ebook.model.Section;
+import com.ebook.repository.SectionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Positional index over section titles and content. Each section gets a dense
+ * internal doc id; updates append a new doc and tombstone the old one, and the
+ * postings are compacted once dead docs outnumber live ones.
+ *
+ * <p>Like {@link EbookSearchIndex}, a rebuild keyset-pages the sections into a
+ * new index and swaps it in, replaying the changes indexed while it loaded.
+ */
+@Component
+public class SectionSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SectionSearchIndex.class);
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+    private static final int MIN_COMPACTION_DOCS = 1024;
+
+    @Autowired
+    private SectionRepository sectionRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+    // Non-null while a rebuild is loading; replayed onto the new index before the swap
+    private List<Consumer<Index>> changedDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Index fresh = null;
+        try {
+            fresh = load();
+        } finally {
+            swapIn(fresh);
+        }
+
+        log.info("Section index rebuilt with {} sections and {} terms",
+                fresh.docsBySection.size(), fresh.postings.size());
+    }
+
+    public void index(Section section) {
+        long sectionId = section.getId();
+        long ebookId = ebookId(section);
+        Map<String, PositionBuffer> terms = terms(section);
+        change(index -> index.add(sectionId, ebookId, terms));
+    }
+
+    public void remove(Long sectionId) {
+        change(index -> index.remove(sectionId));
+    }
+
+    public void removeEbook(Long ebookId) {
+        change(index -> index.removeEbook(ebookId));
+    }
+
+    /**
+     * Every clause must match. Quoted text is a phrase clause; each bare word is
+     * its own clause.
+     */
+    public static List<List<String>> parseQuery(String query) {
+        List<List<String>> clauses = new ArrayList<>();
+        if (query == null) {
+            return clauses;
+        }
+
+        String[] parts = query.split("\"", -1);
+        for (int i = 0; i < parts.length; i++) {
+            List<String> tokens = Tokenizer.tokenize(parts[i]);
+            if (i % 2 == 1 && !tokens.isEmpty()) {
+                clauses.add(tokens);
+            } else {
+                for (String token : tokens) {
+                    clauses.add(List.of(token));
+                }
+            }
+        }
+        return clauses;
+    }
+
+    public Result search(List<List<String>> clauses, Long ebookId, long offset, int limit) {
+        if (clauses.isEmpty() || limit <= 0) {
+            return new Result(List.of(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            Index current = index;
+            PositionalPostings[][] clausePostings = new PositionalPostings[clauses.size()][];
+            double[] idf = new double[clauses.size()];
+            PositionalPostings driver = null;
+            int liveCount = current.docsBySection.size();
+
+            for (int c = 0; c < clauses.size(); c++) {
+                List<String> clause = clauses.get(c);
+                clausePostings[c] = new PositionalPostings[clause.size()];
+                for (int t = 0; t < clause.size(); t++) {
+                    PositionalPostings termPostings = current.postings.get(clause.get(t));
+                    if (termPostings == null) {
+                        return new Result(List.of(), 0);
+                    }
+                    clausePostings[c][t] = termPostings;
+                    idf[c] += Math.log(1 + (liveCount + 0.5) / (termPostings.size() + 0.5));
+                    if (driver == null || termPostings.size() < driver.size()) {
+                        driver = termPostings;
+                    }
+                }
+            }
+
+            Comparator<Hit> ranking = Comparator.comparingDouble(Hit::score).reversed()
+                    .thenComparingLong(Hit::sectionId);
+            PriorityQueue<Hit> heap = new PriorityQueue<>(ranking.reversed());
+            long k = offset + limit;
+            long total = 0;
+
+            for (int i = 0; i < driver.size(); i++) {
+                int doc = driver.doc(i);
+                if (!current.live.get(doc) || (ebookId != null && current.ebookIds[doc] != ebookId)) {
+                    continue;
+                }
+
+                double score = 0;
+                for (int c = 0; c < clausePostings.length && score >= 0; c++) {
+                    int frequency = phraseFrequency(doc, clausePostings[c]);
+                    score = frequency == 0 ? -1 : score + idf[c] * (1 + Math.log(frequency));
+                }
+                if (score < 0) {
+                    continue;
+                }
+
+                total++;
+                heap.offer(new Hit(current.sectionIds[doc], current.ebookIds[doc], score));
+                if (heap.size() > k) {
+                    heap.poll();
+                }
+            }
+
+            List<Hit> ranked = new ArrayList<>(heap);
+            ranked.sort(ranking);
+            return new Result(offset < ranked.size() ? ranked.subList((int) offset, ranked.size()) : List.of(), total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int phraseFrequency(int doc, PositionalPostings[] phrase) {
+        int[] indexes = new int[phrase.length];
+        for (int t = 0; t < phrase.length; t++) {
+            indexes[t] = phrase[t].indexOf(doc);
+            if (indexes[t] < 0) {
+                return 0;
+            }
+        }
+        if (phrase.length == 1) {
+            return phrase[0].frequency(indexes[0]);
+        }
+
+        int matches = 0;
+        for (int occurrence = 0; occurrence < phrase[0].frequency(indexes[0]); occurrence++) {
+            int start = phrase[0].position(indexes[0], occurrence);
+            boolean matched = true;
+            for (int t = 1; t < phrase.length && matched; t++) {
+                matched = phrase[t].containsPosition(indexes[t], start + t);
+            }
+            if (matched) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    private Index load() {
+        Index fresh = new Index();
+        long lastId = 0;
+        List<Section> batch;
+        do {
+            batch = sectionRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(REBUILD_BATCH_SIZE));
+            for (Section section : batch) {
+                fresh.add(section.getId(), ebookId(section), terms(section));
+                lastId = section.getId();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        return fresh;
+    }
+
+    /** Replays the changes recorded during the load and swaps; a failed load (null) keeps the old index. */
+    private void swapIn(Index fresh) {
+        lock.writeLock().lock();
+        try {
+            if (fresh != null) {
+                changedDuringRebuild.forEach(change -> change.accept(fresh));
+                index = fresh;
+            }
+            changedDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void change(Consumer<Index> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Map<String, PositionBuffer> terms(Section section) {
+        Map<String, PositionBuffer> terms = new HashMap<>();
+        int[] position = {0};
+        Tokenizer.TokenConsumer collector = (token, start, end) ->
+                terms.computeIfAbsent(token, k -> new PositionBuffer()).add(position[0]++);
+        Tokenizer.forEachToken(section.getTitle(), collector);
+        // Leave a gap so phrases cannot match across the title/content boundary
+        position[0]++;
+        Tokenizer.forEachToken(section.getContent(), collector);
+        return terms;
+    }
+
+    private static long ebookId(Section section) {
+        return section.getEbook() != null && section.getEbook().getId() != null
+                ? section.getEbook().getId()
+                : -1;
+    }
+
+    private static final class Index {
+        private final Map<String, PositionalPostings> postings = new HashMap<>();
+        private final Map<Long, Integer> docsBySection = new HashMap<>();
+        private BitSet live = new BitSet();
+        private long[] sectionIds = new long[1024];
+        private long[] ebookIds = new long[1024];
+        private int docCount;
+
+        void add(long sectionId, long ebookId, Map<String, PositionBuffer> terms) {
+            removeDoc(sectionId);
+
+            int doc = docCount++;
+            if (doc == sectionIds.length) {
+                sectionIds = Arrays.copyOf(sectionIds, doc * 2);
+                ebookIds = Arrays.copyOf(ebookIds, doc * 2);
+            }
+            sectionIds[doc] = sectionId;
+            ebookIds[doc] = ebookId;
+            live.set(doc);
+            docsBySection.put(sectionId, doc);
+
+            for (Map.Entry<String, PositionBuffer> term : terms.entrySet()) {
+                PositionBuffer buffer = term.getValue();
+                postings.computeIfAbsent(term.getKey(), k -> new PositionalPostings())
+                        .add(doc, buffer.values, buffer.size);
+            }
+            compactIfNeeded();
+        }
+
+        void remove(long sectionId) {
+            removeDoc(sectionId);
+            compactIfNeeded();
+        }
+
+        void removeEbook(long ebookId) {
+            for (int doc = live.nextSetBit(0); doc >= 0; doc = live.nextSetBit(doc + 1)) {
+                if (ebookIds[doc] == ebookId) {
+                    docsBySection.remove(sectionIds[doc]);
+                    live.clear(doc);
+                }
+            }
+            compactIfNeeded();
+        }
+
+        private void removeDoc(long sectionId) {
+            Integer doc = docsBySection.remove(sectionId);
+            if (doc != null) {
+                live.clear(doc);
+            }
+        }
+
+        private void compactIfNeeded() {
+            int liveCount = docsBySection.size();
+            if (docCount < MIN_COMPACTION_DOCS || docCount - liveCount <= liveCount) {
+                return;
+            }
+
+            int[] remap = new int[docCount];
+            int next = 0;
+            for (int doc = 0; doc < docCount; doc++) {
+                if (live.get(doc)) {
+                    sectionIds[next] = sectionIds[doc];
+                    ebookIds[next] = ebookIds[doc];
+                    docsBySection.put(sectionIds[next], next);
+                    remap[doc] = next++;
+                } else {
+                    remap[doc] = -1;
+                }
+            }
+
+            postings.replaceAll((term, termPostings) -> termPostings.compact(remap));
+            postings.values().removeIf(termPostings -> termPostings.size() == 0);
+            live = new BitSet(next);
+            live.set(0, next);
+            docCount = next;
+
+            log.debug("Compacted section index to {} docs", next);
+        }
+    }
+
+    private static final class PositionBuffer {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int position) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = position;
+        }
+    }
+
+    public record Hit(long sectionId, long ebookId, double score) {
+    }
+
+    public record Result(List<Hit> hits, long total) {
+    }
+}
@@ -0,0 +1,81 @@
+package com.ebook.search;
+
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class Snippets {
+
+    private static final int CONTEXT_CHARS = 80;
+
+    private Snippets() {
+    }
+
+    /**
+     * Cuts a window of text around the first clause match and wraps every match
+     * inside it in {@code <mark>}. The surrounding text is HTML-escaped.
+     */
+    public static String highlight(String text, List<List<String>> clauses) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+
+        List<String> tokens = new ArrayList<>();
+        List<int[]> spans = new ArrayList<>();
+        Tokenizer.forEachToken(text, (token, start, end) -> {
+            tokens.add(token);
+            spans.add(new int[]{start, end});
+        });
+
+        List<int[]> matches = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            for (List<String> clause : clauses) {
+                if (matchesAt(tokens, i, clause)) {
+                    matches.add(new int[]{spans.get(i)[0], spans.get(i + clause.size() - 1)[1]});
+                    break;
+                }
+            }
+        }
+
+        int windowStart = 0;
+        int windowEnd = Math.min(text.length(), 2 * CONTEXT_CHARS);
+        if (!matches.isEmpty()) {
+            windowStart = Math.max(0, matches.get(0)[0] - CONTEXT_CHARS);
+            windowEnd = Math.min(text.length(), matches.get(0)[1] + CONTEXT_CHARS);
+        }
+
+        StringBuilder snippet = new StringBuilder();
+        if (windowStart > 0) {
+            snippet.append("…");
+        }
+        int cursor = windowStart;
+        for (int[] match : matches) {
+            if (match[0] < cursor || match[1] > windowEnd) {
+                continue;
+            }
+            snippet.append(HtmlUtils.htmlEscape(text.substring(cursor, match[0])))
+                    .append("<mark>")
+                    .append(HtmlUtils.htmlEscape(text.substring(match[0], match[1])))
+                    .append("</mark>");
+            cursor = match[1];
+        }
+        snippet.append(HtmlUtils.htmlEscape(text.substring(cursor, windowEnd)));
+        if (windowEnd < text.length()) {
+            snippet.append("…");
+        }
+        return snippet.toString();
+    }
+
+    private static boolean matchesAt(List<String> tokens, int index, List<String> clause) {
+        if (index + clause.size() > tokens.size()) {
+            return false;
+        }
+        for (int t = 0; t < clause.size(); t++) {
+            if (!tokens.get(index + t).equals(clause.get(t))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,39 @@
+package com.ebook.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public final class Tokenizer {
+
+    private Tokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        forEachToken(text, (token, start, end) -> tokens.add(token));
+        return tokens;
+    }
+
+    public static void forEachToken(String text, TokenConsumer consumer) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                consumer.accept(text.substring(start, i).toLowerCase(Locale.ROOT), start, i);
+                start = -1;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface TokenConsumer {
+        void accept(String token, int start, int end);
+    }
+}
@@ -0,0 +1,275 @@
+package com.ebook.service;
+
+import com.ebook.model.FileBlob;
+import com.ebook.repository.FileBlobRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed PDF storage. Each distinct upload is kept once under its
+ * SHA-256 and reference-counted in {@code file_blobs}; the file is removed when
+ * the last ebook referencing it lets go. Paths that predate this layout (random
+ * UUID names) are owned by a single ebook and are deleted directly.
+ */
+@Service
+public class BlobStorageService {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobStorageService.class);
+    private static final Pattern BLOB_PATH = Pattern.compile("^[0-9a-f]{2}/[0-9a-f]{64}\\.pdf$");
+
+    @Autowired
+    private FileBlobRepository fileBlobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final String uploadDir = "uploads/ebooks/";
+    private final Path tempDir = Paths.get(uploadDir, "tmp");
+    private TransactionTemplate transactionTemplate;
+    // afterCommit callbacks run while the finished transaction is still bound
+    private TransactionTemplate newTransactionTemplate;
+
+    public BlobStorageService() {
+        try {
+            Files.createDirectories(tempDir);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create upload directory!", e);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        newTransactionTemplate = new TransactionTemplate(transactionManager);
+        newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public Path resolve(String filePath) {
+        return Paths.get(uploadDir).resolve(filePath);
+    }
+
+    /**
+     * Streams the upload to a temp file while hashing it, then either adopts it as
+     * a new blob or drops it in favour of the identical blob already stored.
+     *
+     * @return the blob's path relative to the upload directory
+     */
+    public String store(MultipartFile file) throws IOException {
+        return store(file.getInputStream());
+    }
+
+    public String store(InputStream content) throws IOException {
+        Path temp = createTempFile("upload-");
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(content, digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return adopt(temp, digest);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Stores a file that is already on disk (it must live in the temp directory so
+     * it can be moved atomically). The source is consumed either way.
+     */
+    public String storeFile(Path source) throws IOException {
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(Files.newInputStream(source), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            return adopt(source, digest);
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    /**
+     * The SHA-256 a content-addressed path was named after, or null for files stored
+     * before content addressing.
+     */
+    public static String contentHash(String filePath) {
+        return filePath != null && BLOB_PATH.matcher(filePath).matches() ? filePath.substring(3, 3 + 64) : null;
+    }
+
+    public Path createTempFile(String prefix) throws IOException {
+        return Files.createTempFile(tempDir, prefix, ".part");
+    }
+
+    private String adopt(Path temp, MessageDigest digest) throws IOException {
+        String hash = HexFormat.of().formatHex(digest.digest());
+        String filePath = hash.substring(0, 2) + "/" + hash + ".pdf";
+        long size = Files.size(temp);
+        try {
+            try {
+                acquire(hash, size, temp, resolve(filePath));
+            } catch (DataIntegrityViolationException | PessimisticLockingFailureException e) {
+                // Another request stored the same content first; take a reference to its blob
+                acquire(hash, size, temp, resolve(filePath));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return filePath;
+    }
+
+    public void release(String filePath) {
+        if (filePath == null) {
+            return;
+        }
+
+        try {
+            if (!BLOB_PATH.matcher(filePath).matches()) {
+                Files.deleteIfExists(resolve(filePath));
+                return;
+            }
+
+            String hash = contentHash(filePath);
+            transactionTemplate.executeWithoutResult(status -> {
+                FileBlob blob = fileBlobRepository.findForUpdate(hash).orElse(null);
+                if (blob == null) {
+                    return;
+                }
+                if (blob.getRefCount() > 1) {
+                    blob.setRefCount(blob.getRefCount() - 1);
+                    return;
+                }
+                fileBlobRepository.delete(blob);
+                // Only once the row is gone for good; a rollback keeps both
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        deleteIfUnreferenced(hash, resolve(filePath));
+                    }
+                });
+            });
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Error releasing file {}: {}", filePath, e.getMessage());
+        }
+    }
+
+    private void acquire(String hash, long size, Path temp, Path target) {
+        AtomicBoolean moved = new AtomicBoolean();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                FileBlob blob = fileBlobRepository.findForUpdate(hash).orElse(null);
+                if (blob != null) {
+                    blob.setRefCount(blob.getRefCount() + 1);
+                    if (!Files.exists(target)) {
+                        moveFile(temp, target);
+                    }
+                    return;
+                }
+
+                moveFile(temp, target);
+                moved.set(true);
+                blob = new FileBlob();
+                blob.setHash(hash);
+                blob.setSize(size);
+                blob.setRefCount(1);
+                blob.setCreatedAt(LocalDateTime.now());
+                fileBlobRepository.saveAndFlush(blob);
+            });
+        } catch (DataIntegrityViolationException | PessimisticLockingFailureException e) {
+            // The request that won the insert owns the (identical) file now; adopt() retries as a reference
+            throw e;
+        } catch (RuntimeException e) {
+            if (moved.get()) {
+                discardOrphan(hash, target);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes a file moved into the store by an insert that then failed, unless a
+     * concurrent upload of the same content has committed a row for it since.
+     */
+    private void discardOrphan(String hash, Path target) {
+        try {
+            if (fileBlobRepository.existsById(hash)) {
+                return;
+            }
+        } catch (DataAccessException e) {
+            // Can't check; a racing upload of the same bytes is far less likely than a leaked file
+        }
+        try {
+            Files.deleteIfExists(target);
+        } catch (IOException e) {
+            log.error("Error deleting orphaned blob {}: {}", target, e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes a released blob's file unless a concurrent upload of the same content
+     * has created a new row for it. The locking read waits for such an upload's
+     * insert, and holds it off until the file is gone so it re-creates the file.
+     */
+    private void deleteIfUnreferenced(String hash, Path target) {
+        try {
+            newTransactionTemplate.executeWithoutResult(status -> {
+                if (fileBlobRepository.findForUpdate(hash).isEmpty()) {
+                    deleteFile(target);
+                }
+            });
+        } catch (DataAccessException | UncheckedIOException e) {
+            log.error("Error deleting released blob {}: {}", target, e.getMessage());
+        }
+    }
+
+    private static void moveFile(Path source, Path target) {
+        try {
+            Files.createDirectories(target.getParent());
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void deleteFile(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.ebook.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Names of the catalog read caches and the invalidation the write paths call.
+ * Inside a transaction entries are evicted both now and again after commit, so a
+ * read that races the transaction cannot leave the old row cached.
+ */
+@Component
+public class CatalogCache {
+
+    /** Ebook with its sections, keyed by ebook id. */
+    public static final String EBOOKS = "ebooks";
+    /** Ordered sections of one ebook, keyed by ebook id. */
+    public static final String EBOOK_SECTIONS = "ebookSections";
+    /** Keyset pages of category listings, keyed by (category, cursor, size). */
+    public static final String CATEGORY_PAGES = "categoryPages";
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    /**
+     * An ebook's own columns changed, or it was added or removed. Category pages
+     * are cleared wholesale: their keys cannot be matched to an ebook id.
+     */
+    public void ebookChanged(Long ebookId) {
+        invalidate(() -> {
+            evict(EBOOKS, ebookId);
+            evict(EBOOK_SECTIONS, ebookId);
+            clear(CATEGORY_PAGES);
+        });
+    }
+
+    /**
+     * Sections of an ebook changed. Category pages carry a section count, so they
+     * only need clearing when sections were added or removed.
+     */
+    public void sectionsChanged(Long ebookId, boolean countChanged) {
+        invalidate(() -> {
+            evict(EBOOKS, ebookId);
+            evict(EBOOK_SECTIONS, ebookId);
+            if (countChanged) {
+                clear(CATEGORY_PAGES);
+            }
+        });
+    }
+
+    private void evict(String cacheName, Long key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null && key != null) {
+            cache.evict(key);
+        }
+    }
+
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    private static void invalidate(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package com.ebook.service;
+
+import com.ebook.dto.ImportStatus;
+import com.ebook.model.Ebook;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk catalog import from a CSV (with header) or JSONL manifest. The manifest is
+ * spooled to disk and then read row by row in the background: each batch has its
+ * PDFs copied from the staging directory in parallel, then its rows inserted in one
+ * batched transaction. Progress and per-row errors are kept on the job.
+ */
+@Service
+public class CatalogImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogImportService.class);
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final byte[] PDF_MAGIC = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+
+    @Autowired
+    private EbookService ebookService;
+
+    @Autowired
+    private BlobStorageService blobStorageService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransferMetrics transferMetrics;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private AsyncTaskExecutor taskExecutor;
+
+    @Value("${app.import.staging-dir:uploads/staging}")
+    private Path stagingDir;
+
+    @Value("${app.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.import.file-workers:4}")
+    private int fileWorkers;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private ExecutorService fileExecutor;
+    private Semaphore fileSlots;
+
+    @PostConstruct
+    void start() throws IOException {
+        stagingDir = stagingDir.toAbsolutePath().normalize();
+        Files.createDirectories(stagingDir);
+        // Copies block on disk I/O, so they follow the virtual-threads profile. Virtual threads
+        // are not pooled: each copy gets its own, and file-workers caps how many run at once
+        fileExecutor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("catalog-import-", 0).factory())
+                : Executors.newFixedThreadPool(fileWorkers, Thread.ofPlatform().name("catalog-import-", 0).factory());
+        fileSlots = new Semaphore(fileWorkers);
+    }
+
+    @PreDestroy
+    void stop() {
+        fileExecutor.shutdown();
+    }
+
+    public ImportStatus startImport(InputStream manifest, String format, Long ownerId) throws IOException {
+        boolean csv;
+        switch (format == null ? "" : format.toLowerCase(Locale.ROOT)) {
+            case "csv" -> csv = true;
+            case "jsonl", "ndjson" -> csv = false;
+            default -> throw new IllegalArgumentException("Format must be csv or jsonl");
+        }
+
+        Path spooled = blobStorageService.createTempFile("import-");
+        Files.copy(manifest, spooled, StandardCopyOption.REPLACE_EXISTING);
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString());
+        jobs.put(job.id, job);
+        taskExecutor.execute(() -> run(job, spooled, csv, ownerId));
+        return job.status();
+    }
+
+    public ImportStatus getStatus(String importId) {
+        ImportJob job = jobs.get(importId);
+        if (job == null) {
+            throw new RuntimeException("Import not found: " + importId);
+        }
+        return job.status();
+    }
+
+    @Scheduled(fixedDelayString = "${app.import.cleanup-interval:PT1H}")
+    public void forgetFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(1);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    private void run(ImportJob job, Path manifest, boolean csv, Long ownerId) {
+        try (BufferedReader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+            RowReader rows = csv ? new CsvRowReader(reader) : new JsonlRowReader(reader);
+            List<ImportRow> batch = new ArrayList<>(batchSize);
+            ImportRow row;
+            while ((row = rows.next()) != null) {
+                job.rowsRead.incrementAndGet();
+                String problem = row.error() != null ? row.error() : validate(row);
+                if (problem != null) {
+                    job.reject(row.line(), problem);
+                    continue;
+                }
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    importBatch(job, batch, ownerId);
+                    batch.clear();
+                }
+            }
+            importBatch(job, batch, ownerId);
+            job.finish("COMPLETED");
+        } catch (Exception e) {
+            log.error("Import {} failed", job.id, e);
+            job.reject(0, "Import aborted: " + e.getMessage());
+            job.finish("FAILED");
+        } finally {
+            try {
+                Files.deleteIfExists(manifest);
+            } catch (IOException e) {
+                log.warn("Could not delete import manifest {}", manifest);
+            }
+        }
+    }
+
+    private void importBatch(ImportJob job, List<ImportRow> batch, Long ownerId) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // Stage 1: copy the PDFs into blob storage in parallel
+        List<CompletableFuture<String>> files = new ArrayList<>(batch.size());
+        for (ImportRow row : batch) {
+            files.add(row.file() == null
+                    ? CompletableFuture.completedFuture(null)
+                    : CompletableFuture.supplyAsync(() -> copyStagedFile(row.file()), fileExecutor));
+        }
+
+        List<Ebook> ebooks = new ArrayList<>(batch.size());
+        List<ImportRow> accepted = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            ImportRow row = batch.get(i);
+            String filePath;
+            try {
+                filePath = files.get(i).join();
+            } catch (CompletionException e) {
+                job.reject(row.line(), "File " + row.file() + ": " + e.getCause().getMessage());
+                continue;
+            }
+
+            Ebook ebook = new Ebook();
+            ebook.setTitle(row.title());
+            ebook.setAuthor(row.author());
+            ebook.setCategory(row.category());
+            ebook.setDescription(row.description());
+            ebook.setFilePath(filePath);
+            ebook.setUser(userService.getReference(ownerId));
+            ebooks.add(ebook);
+            accepted.add(row);
+        }
+
+        // Stage 2: insert the surviving rows in one batched transaction
+        try {
+            ebookService.createEbooks(ebooks);
+            job.imported.addAndGet(ebooks.size());
+        } catch (RuntimeException e) {
+            for (int i = 0; i < ebooks.size(); i++) {
+                blobStorageService.release(ebooks.get(i).getFilePath());
+                job.reject(accepted.get(i).line(), "Insert failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private String copyStagedFile(String relativePath) {
+        fileSlots.acquireUninterruptibly();
+        try {
+            return storeStagedFile(relativePath);
+        } finally {
+            fileSlots.release();
+        }
+    }
+
+    private String storeStagedFile(String relativePath) {
+        Path source = stagingDir.resolve(relativePath).normalize();
+        if (!source.startsWith(stagingDir)) {
+            throw new IllegalArgumentException("path is outside the staging directory");
+        }
+        if (!Files.isRegularFile(source)) {
+            throw new IllegalArgumentException("not found in the staging directory");
+        }
+
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(source))) {
+            in.mark(PDF_MAGIC.length);
+            if (!Arrays.equals(in.readNBytes(PDF_MAGIC.length), PDF_MAGIC)) {
+                throw new IllegalArgumentException("not a PDF file");
+            }
+            in.reset();
+            String filePath = blobStorageService.store(in);
+            transferMetrics.uploaded("import", Files.size(source));
+            return filePath;
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static String validate(ImportRow row) {
+        if (isBlank(row.title()) || isBlank(row.author()) || isBlank(row.category())) {
+            return "title, author and category are required";
+        }
+        if (row.title().length() > 255 || row.author().length() > 255 || row.category().length() > 255) {
+            return "title, author and category must be at most 255 characters";
+        }
+        if (row.description() != null && row.description().length() > 1000) {
+            return "description must be at most 1000 characters";
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private record ImportRow(long line, String title, String author, String category, String description,
+                             String file, String error) {
+
+        static ImportRow of(long line, Map<String, String> fields) {
+            return new ImportRow(line, fields.get("title"), fields.get("author"), fields.get("category"),
+                    emptyToNull(fields.get("description")), emptyToNull(fields.get("file")), null);
+        }
+
+        static ImportRow invalid(long line, String error) {
+            return new ImportRow(line, null, null, null, null, null, error);
+        }
+    }
+
+    private interface RowReader {
+        ImportRow next() throws IOException;
+    }
+
+    private final class JsonlRowReader implements RowReader {
+        private final BufferedReader reader;
+        private long line;
+
+        JsonlRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                line++;
+            } while (text != null && text.isBlank());
+            if (text == null) {
+                return null;
+            }
+
+            try {
+                JsonNode node = objectMapper.readTree(text);
+                Map<String, String> fields = new HashMap<>();
+                node.fields().forEachRemaining(field -> fields.put(field.getKey(), field.getValue().asText(null)));
+                return ImportRow.of(line, fields);
+            } catch (IOException e) {
+                return ImportRow.invalid(line, "Malformed JSON");
+            }
+        }
+    }
+
+    /**
+     * RFC 4180 style: comma separated, double-quoted fields may contain commas,
+     * doubled quotes and line breaks. The first record names the columns.
+     */
+    private static final class CsvRowReader implements RowReader {
+        private final BufferedReader reader;
+        private List<String> header;
+        private long line;
+
+        CsvRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            if (header == null) {
+                header = readRecord();
+                if (header == null) {
+                    return null;
+                }
+                header.replaceAll(name -> name.trim().toLowerCase(Locale.ROOT));
+            }
+
+            List<String> values;
+            do {
+                values = readRecord();
+            } while (values != null && values.size() == 1 && values.get(0).isEmpty());
+            if (values == null) {
+                return null;
+            }
+            if (values.size() != header.size()) {
+                return ImportRow.invalid(line, "Expected " + header.size() + " columns but found " + values.size());
+            }
+
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                fields.put(header.get(i), values.get(i));
+            }
+            return ImportRow.of(line, fields);
+        }
+
+        private List<String> readRecord() throws IOException {
+            String text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+
+            List<String> values = new ArrayList<>();
+            StringBuilder value = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == text.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    // Quoted field continues on the next line
+                    String continuation = reader.readLine();
+                    if (continuation == null) {
+                        break;
+                    }
+                    line++;
+                    value.append('\n');
+                    text = continuation;
+                    i = 0;
+                    continue;
+                }
+
+                char c = text.charAt(i++);
+                if (quoted) {
+                    if (c == '"' && i < text.length() && text.charAt(i) == '"') {
+                        value.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        value.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(value.toString());
+                    value.setLength(0);
+                } else {
+                    value.append(c);
+                }
+            }
+            values.add(value.toString());
+            return values;
+        }
+    }
+
+    private static final class ImportJob {
+        private final String id;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicLong rowsRead = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<String> errors = new ArrayList<>();
+        private volatile String state = "RUNNING";
+        private volatile LocalDateTime finishedAt;
+
+        ImportJob(String id) {
+            this.id = id;
+        }
+
+        void reject(long line, String message) {
+            failed.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add("line " + line + ": " + message);
+                }
+            }
+        }
+
+        void finish(String finalState) {
+            finishedAt = LocalDateTime.now();
+            state = finalState;
+        }
+
+        ImportStatus status() {
+            List<String> errorSnapshot;
+            synchronized (errors) {
+                errorSnapshot = new ArrayList<>(errors);
+            }
+            return new ImportStatus(id, state, rowsRead.get(), imported.get(), failed.get(), errorSnapshot,
+                    startedAt, finishedAt);
+        }
+    }
+}
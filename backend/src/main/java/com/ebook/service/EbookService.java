@@ -1,23 +1,39 @@
 package com.ebook.service;
 
+import com.ebook.dto.CategoryFacet;
+import com.ebook.dto.CursorPage;
+import com.ebook.dto.EbookSummary;
 import com.ebook.model.Ebook;
 import com.ebook.repository.EbookRepository;
 import com.ebook.repository.UserRepository;
+import com.ebook.search.CategoryFacets;
+import com.ebook.search.EbookSearchIndex;
+import com.ebook.search.SectionSearchIndex;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "app.service", histogram = true)
 public class EbookService {
 
     @Autowired
@@ -26,109 +42,221 @@ public class EbookService {
     @Autowired
     private UserRepository userRepository;
 
-    private final String uploadDir = "uploads/ebooks/";
+    @Autowired
+    private EbookSearchIndex ebookSearchIndex;
 
-    public EbookService() {
-        try {
-            Files.createDirectories(Paths.get(uploadDir));
-        } catch (IOException e) {
-            throw new RuntimeException("Could not create upload directory!", e);
-        }
+    @Autowired
+    private SectionSearchIndex sectionSearchIndex;
+
+    @Autowired
+    private BlobStorageService blobStorageService;
+
+    @Autowired
+    private CategoryFacets categoryFacets;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private TransferMetrics transferMetrics;
+
+    @Autowired
+    private PopularityService popularityService;
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Transactional(readOnly = true)
+    public CursorPage<EbookSummary> getAllEbooks(String cursor, int size) {
+        int pageSize = CursorPage.pageSize(size);
+        List<EbookSummary> rows = ebookRepository.findSummaries(CursorPage.afterId(cursor), Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, EbookSummary::getId);
     }
 
-    public List<Ebook> getAllEbooks() {
-        return ebookRepository.findAll();
+    /**
+     * Feeds every ebook summary to {@code sink} in id order, straight off a database
+     * cursor. Summaries are not managed entities, so nothing accumulates.
+     */
+    @Transactional(readOnly = true)
+    public void streamAllEbooks(Consumer<EbookSummary> sink) {
+        try (Stream<EbookSummary> rows = ebookRepository.streamSummaries()) {
+            rows.forEach(sink);
+        }
     }
 
+    @Transactional(readOnly = true)
     public Optional<Ebook> getEbookById(Long id) {
         return ebookRepository.findById(id);
     }
 
-    public List<Ebook> searchEbooks(String keyword) {
-        return ebookRepository.searchEbooks(keyword);
+    @Cacheable(cacheNames = CatalogCache.EBOOKS, unless = "#result == null")
+    @Transactional(readOnly = true)
+    public Optional<Ebook> getEbookWithSections(Long id) {
+        return ebookRepository.findWithSectionsById(id);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<EbookSummary> searchEbooks(String keyword, int page, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        int pageNumber = Math.max(page, 0);
+        EbookSearchIndex.Result result = ebookSearchIndex.search(keyword, (long) pageNumber * pageSize, pageSize);
+
+        Map<Long, EbookSummary> ebooksById = new HashMap<>();
+        if (!result.ids().isEmpty()) {
+            for (EbookSummary ebook : ebookRepository.findSummariesByIdIn(result.ids())) {
+                ebooksById.put(ebook.getId(), ebook);
+            }
+        }
+
+        List<EbookSummary> ebooks = new ArrayList<>();
+        for (Long id : result.ids()) {
+            EbookSummary ebook = ebooksById.get(id);
+            if (ebook != null) {
+                ebooks.add(ebook);
+            }
+        }
+        return new PageImpl<>(ebooks, PageRequest.of(pageNumber, pageSize), result.total());
     }
 
     public Ebook createEbook(Ebook ebook, MultipartFile file) throws IOException {
         if (file != null && !file.isEmpty()) {
-            String fileName = saveFile(file);
-            ebook.setFilePath(fileName);
+            ebook.setFilePath(blobStorageService.store(file));
+            transferMetrics.uploaded("multipart", file.getSize());
         }
+        return saveNewEbook(ebook);
+    }
+
+    public Ebook createEbook(Ebook ebook, Path assembledFile) throws IOException {
+        ebook.setFilePath(blobStorageService.storeFile(assembledFile));
+        return saveNewEbook(ebook);
+    }
+
+    private Ebook saveNewEbook(Ebook ebook) {
         ebook.setUploadDate(LocalDateTime.now());
-        return ebookRepository.save(ebook);
+
+        Ebook savedEbook;
+        try {
+            savedEbook = ebookRepository.save(ebook);
+        } catch (RuntimeException e) {
+            blobStorageService.release(ebook.getFilePath());
+            throw e;
+        }
+        ebookSearchIndex.index(savedEbook);
+        categoryFacets.added(savedEbook.getCategory(), ownerId(savedEbook));
+        catalogCache.ebookChanged(savedEbook.getId());
+        return savedEbook;
+    }
+
+    /**
+     * Inserts already-validated ebooks in one transaction (JDBC-batched) and indexes
+     * them once committed.
+     */
+    public List<Ebook> createEbooks(List<Ebook> ebooks) {
+        for (Ebook ebook : ebooks) {
+            if (ebook.getUploadDate() == null) {
+                ebook.setUploadDate(LocalDateTime.now());
+            }
+        }
+        List<Ebook> savedEbooks = ebookRepository.saveAll(ebooks);
+        for (Ebook savedEbook : savedEbooks) {
+            ebookSearchIndex.index(savedEbook);
+            categoryFacets.added(savedEbook.getCategory(), ownerId(savedEbook));
+            catalogCache.ebookChanged(savedEbook.getId());
+        }
+        return savedEbooks;
     }
 
     public Ebook updateEbook(Long id, Ebook ebookDetails, MultipartFile file) throws IOException {
         Ebook ebook = ebookRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Ebook not found with id: " + id));
 
+        String previousCategory = ebook.getCategory();
         ebook.setTitle(ebookDetails.getTitle());
         ebook.setAuthor(ebookDetails.getAuthor());
         ebook.setCategory(ebookDetails.getCategory());
         ebook.setDescription(ebookDetails.getDescription());
 
-        if (file != null && !file.isEmpty()) {
-            String fileName = saveFile(file);
-            ebook.setFilePath(fileName);
+        String previousFilePath = ebook.getFilePath();
+        boolean replacesFile = file != null && !file.isEmpty();
+        if (replacesFile) {
+            ebook.setFilePath(blobStorageService.store(file));
+            transferMetrics.uploaded("multipart", file.getSize());
         }
 
-        return ebookRepository.save(ebook);
+        Ebook savedEbook;
+        try {
+            savedEbook = ebookRepository.save(ebook);
+        } catch (RuntimeException e) {
+            if (replacesFile) {
+                blobStorageService.release(ebook.getFilePath());
+            }
+            throw e;
+        }
+        if (replacesFile) {
+            blobStorageService.release(previousFilePath);
+        }
+        ebookSearchIndex.index(savedEbook);
+        categoryFacets.moved(previousCategory, savedEbook.getCategory(), ownerId(savedEbook));
+        catalogCache.ebookChanged(savedEbook.getId());
+        return savedEbook;
     }
 
     public void deleteEbook(Long id) {
         Ebook ebook = ebookRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Ebook not found with id: " + id));
 
-        // Delete file from filesystem
-        try {
-            if (ebook.getFilePath() != null) {
-                Path filePath = Paths.get(uploadDir + ebook.getFilePath());
-                Files.deleteIfExists(filePath);
-            }
-        } catch (IOException e) {
-            System.err.println("Error deleting file: " + e.getMessage());
-        }
-
         ebookRepository.deleteById(id);
-    }
+        ebookSearchIndex.remove(id);
+        sectionSearchIndex.removeEbook(id);
+        categoryFacets.removed(ebook.getCategory(), ownerId(ebook));
+        catalogCache.ebookChanged(id);
+        popularityService.forget(id);
 
-    private String saveFile(MultipartFile file) throws IOException {
-        String originalFileName = file.getOriginalFilename();
-        String fileExtension = "";
+        // Drop this ebook's reference to its file; the blob goes once nothing else uses it
+        blobStorageService.release(ebook.getFilePath());
+    }
 
-        if (originalFileName != null && originalFileName.contains(".")) {
-            fileExtension = originalFileName.substring(originalFileName.lastIndexOf("."));
+    public void deleteEbooksByUserId(Long userId) {
+        for (Long id : ebookRepository.findIdsByUserId(userId)) {
+            deleteEbook(id);
         }
-
-        String fileName = UUID.randomUUID().toString() + fileExtension;
-
-        Path filePath = Paths.get(uploadDir + fileName);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-        return fileName;
     }
 
-    public List<Ebook> getEbooksByCategory(String category) {
-        return ebookRepository.findByCategory(category);
+    @Cacheable(CatalogCache.CATEGORY_PAGES)
+    @Transactional(readOnly = true)
+    public CursorPage<EbookSummary> getEbooksByCategory(String category, String cursor, int size) {
+        int pageSize = CursorPage.pageSize(size);
+        List<EbookSummary> rows = ebookRepository.findSummariesByCategory(
+                category, CursorPage.afterId(cursor), Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, EbookSummary::getId);
     }
 
-    public byte[] getEbookFile(Long id) throws IOException {
-        Ebook ebook = ebookRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Ebook not found with id: " + id));
+    public List<CategoryFacet> getCategoryFacets(Long userId) {
+        return categoryFacets.facets(userId);
+    }
 
+    public Path getEbookFile(Ebook ebook) {
         if (ebook.getFilePath() == null) {
             throw new RuntimeException("No file associated with this ebook");
         }
 
-        Path filePath = Paths.get(uploadDir + ebook.getFilePath());
+        Path filePath = blobStorageService.resolve(ebook.getFilePath());
 
-        if (!Files.exists(filePath)) {
+        if (!Files.isReadable(filePath)) {
             throw new RuntimeException("File not found: " + ebook.getFilePath());
         }
 
-        return Files.readAllBytes(filePath);
+        return filePath;
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<EbookSummary> getEbooksByUserId(Long userId, String cursor, int size) {
+        int pageSize = CursorPage.pageSize(size);
+        List<EbookSummary> rows = ebookRepository.findSummariesByUserId(
+                userId, CursorPage.afterId(cursor), Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, EbookSummary::getId);
     }
 
-    public List<Ebook> getEbooksByUserId(Long userId) {
-        return ebookRepository.findByUserId(userId);
+    private static Long ownerId(Ebook ebook) {
+        return ebook.getUser() != null ? ebook.getUser().getId() : null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,250 @@
+package com.ebook.service;
+
+import com.ebook.dto.EbookSummary;
+import com.ebook.dto.TrendingEbook;
+import com.ebook.model.EbookStats;
+import com.ebook.repository.EbookRepository;
+import com.ebook.repository.EbookStatsRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * View and download counters kept off the request path. A request only bumps a
+ * {@link LongAdder} for its ebook; a scheduled flush drains the adders into
+ * {@code ebook_stats} with one batched upsert and folds the same counts into
+ * exponentially decayed trending scores. Draining subtracts the sum it read
+ * instead of resetting, so increments racing a flush carry over to the next one.
+ */
+@Service
+public class PopularityService {
+
+    private static final Logger log = LoggerFactory.getLogger(PopularityService.class);
+
+    // Selects the ebook row so counts for an ebook deleted since they were taken insert nothing
+    private static final String UPSERT_SQL = "INSERT INTO ebook_stats (ebook_id, views, downloads) "
+            + "SELECT id, ?, ? FROM ebooks WHERE id = ? "
+            + "ON DUPLICATE KEY UPDATE views = views + VALUES(views), downloads = downloads + VALUES(downloads)";
+    // Scores below this (in events, after decay) are dropped so the map only holds recent ebooks
+    private static final double MIN_SCORE = 0.05;
+    // Re-base the landmark before the growth factor can lose precision
+    private static final double MAX_EXPONENT = 30;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EbookRepository ebookRepository;
+
+    @Autowired
+    private EbookStatsRepository ebookStatsRepository;
+
+    @Value("${app.popularity.half-life:6h}")
+    private Duration halfLife;
+
+    @Value("${app.popularity.download-weight:5}")
+    private double downloadWeight;
+
+    @Value("${app.popularity.trending-size:100}")
+    private int trendingSize;
+
+    private final Map<Long, Counters> pending = new ConcurrentHashMap<>();
+    // Serializes flushes (scheduled, shutdown or direct calls) with each other and with forget
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // Forward decay: scores are stored relative to landmarkMillis, so adding an event
+    // never touches the other entries. Only the flush thread uses these.
+    private final Map<Long, Double> scores = new HashMap<>();
+    private long landmarkMillis = System.currentTimeMillis();
+
+    private volatile List<TrendingEbook> trending = List.of();
+
+    public void viewed(Long ebookId) {
+        counters(ebookId).views.increment();
+    }
+
+    public void downloaded(Long ebookId) {
+        counters(ebookId).downloads.increment();
+    }
+
+    /**
+     * The most popular ebooks as of the last flush, highest decayed score first.
+     */
+    public List<TrendingEbook> getTrending(int limit) {
+        List<TrendingEbook> snapshot = trending;
+        return snapshot.subList(0, Math.min(Math.max(limit, 0), snapshot.size()));
+    }
+
+    /**
+     * Drops a deleted ebook's counters, totals and trending entry. A view or download
+     * racing the delete may still count it again; the flush then finds no ebook row
+     * to upsert for and drops the counts.
+     */
+    public void forget(Long ebookId) {
+        // Under the flush lock, so a flush in progress cannot upsert the row again after the delete
+        flushLock.lock();
+        try {
+            pending.remove(ebookId);
+            ebookStatsRepository.deleteById(ebookId);
+            scores.remove(ebookId);
+            trending = trending.stream().filter(ebook -> !ebook.getId().equals(ebookId)).toList();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.popularity.flush-interval:PT10S}")
+    @PreDestroy
+    public void flush() {
+        flushLock.lock();
+        try {
+            drain();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void drain() {
+        List<Object[]> batch = new ArrayList<>();
+        for (Map.Entry<Long, Counters> entry : pending.entrySet()) {
+            Counters counters = entry.getValue();
+            long views = counters.views.sum();
+            long downloads = counters.downloads.sum();
+            if (views > 0 || downloads > 0) {
+                counters.views.add(-views);
+                counters.downloads.add(-downloads);
+                counters.idle = false;
+                batch.add(new Object[]{entry.getKey(), views, downloads});
+            } else if (counters.idle) {
+                // Idle for a whole interval; a request that looked it up just before the
+                // removal may still increment it, so fold anything that landed back in
+                pending.remove(entry.getKey(), counters);
+                long lateViews = counters.views.sum();
+                long lateDownloads = counters.downloads.sum();
+                if (lateViews > 0 || lateDownloads > 0) {
+                    Counters current = counters(entry.getKey());
+                    current.views.add(lateViews);
+                    current.downloads.add(lateDownloads);
+                }
+            } else {
+                counters.idle = true;
+            }
+        }
+
+        int[] updated = new int[batch.size()];
+        if (!batch.isEmpty()) {
+            try {
+                updated = jdbcTemplate.batchUpdate(UPSERT_SQL,
+                        batch.stream().map(row -> new Object[]{row[1], row[2], row[0]}).toList());
+            } catch (DataAccessException e) {
+                // Put the counts back for the next flush rather than losing them
+                log.warn("Could not flush {} popularity counters: {}", batch.size(), e.getMessage());
+                for (Object[] row : batch) {
+                    Counters counters = counters((Long) row[0]);
+                    counters.views.add((Long) row[1]);
+                    counters.downloads.add((Long) row[2]);
+                }
+                return;
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        double lambda = Math.log(2) / halfLife.toMillis();
+        if (lambda * (now - landmarkMillis) > MAX_EXPONENT) {
+            double decay = Math.exp(-lambda * (now - landmarkMillis));
+            scores.replaceAll((id, score) -> score * decay);
+            landmarkMillis = now;
+        }
+        double growth = Math.exp(lambda * (now - landmarkMillis));
+        for (int i = 0; i < batch.size(); i++) {
+            if (updated[i] == 0) {
+                // The ebook is gone
+                continue;
+            }
+            Object[] row = batch.get(i);
+            double events = (Long) row[1] + downloadWeight * (Long) row[2];
+            scores.merge((Long) row[0], events * growth, Double::sum);
+        }
+        int before = scores.size();
+        scores.values().removeIf(score -> score < MIN_SCORE * growth);
+
+        if (!batch.isEmpty() || scores.size() != before) {
+            trending = rank(growth);
+        }
+    }
+
+    /**
+     * Keeps the top {@code trendingSize} scores in a min-heap, then hydrates them
+     * with titles and lifetime totals.
+     */
+    private List<TrendingEbook> rank(double growth) {
+        PriorityQueue<Map.Entry<Long, Double>> heap = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            if (heap.size() < trendingSize) {
+                heap.offer(Map.entry(entry.getKey(), entry.getValue()));
+            } else if (entry.getValue() > heap.peek().getValue()) {
+                heap.poll();
+                heap.offer(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        }
+        if (heap.isEmpty()) {
+            return List.of();
+        }
+
+        List<Map.Entry<Long, Double>> top = new ArrayList<>(heap);
+        top.sort(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder()));
+        List<Long> ids = top.stream().map(Map.Entry::getKey).toList();
+
+        Map<Long, EbookSummary> summaries = new HashMap<>();
+        for (EbookSummary summary : ebookRepository.findSummariesByIdIn(ids)) {
+            summaries.put(summary.getId(), summary);
+        }
+        Map<Long, EbookStats> stats = new HashMap<>();
+        for (EbookStats row : ebookStatsRepository.findAllById(ids)) {
+            stats.put(row.getEbookId(), row);
+        }
+
+        List<TrendingEbook> ranked = new ArrayList<>(top.size());
+        for (Map.Entry<Long, Double> entry : top) {
+            EbookSummary summary = summaries.get(entry.getKey());
+            if (summary == null) {
+                continue;
+            }
+            EbookStats totals = stats.get(entry.getKey());
+            ranked.add(new TrendingEbook(summary.getId(), summary.getTitle(), summary.getAuthor(),
+                    summary.getCategory(), entry.getValue() / growth,
+                    totals != null ? totals.getViews() : 0,
+                    totals != null ? totals.getDownloads() : 0));
+        }
+        return List.copyOf(ranked);
+    }
+
+    private Counters counters(Long ebookId) {
+        Counters counters = pending.get(ebookId);
+        return counters != null ? counters : pending.computeIfAbsent(ebookId, id -> new Counters());
+    }
+
+    private static final class Counters {
+        private final LongAdder views = new LongAdder();
+        private final LongAdder downloads = new LongAdder();
+        // Nothing to drain at the last flush; only the flush thread reads or writes this
+        private boolean idle;
+    }
+}
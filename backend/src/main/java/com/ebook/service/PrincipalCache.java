@@ -0,0 +1,50 @@
+package com.ebook.service;
+
+import com.ebook.config.AuthenticatedUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Bounded, time-limited cache of authenticated principals keyed by username.
+ * UserService invalidates entries whenever a user is changed or removed.
+ */
+@Component
+public class PrincipalCache {
+
+    @Value("${security.principal-cache.ttl:5m}")
+    private Duration ttl;
+
+    @Value("${security.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    private Cache<String, AuthenticatedUser> entries;
+
+    @PostConstruct
+    void init() {
+        entries = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public AuthenticatedUser get(String username) {
+        AuthenticatedUser principal = entries.getIfPresent(username);
+        // Hand out a copy: authentication erases credentials on the principal it returns
+        return principal != null ? new AuthenticatedUser(principal) : null;
+    }
+
+    public void put(AuthenticatedUser principal) {
+        entries.put(principal.getUsername(), new AuthenticatedUser(principal));
+    }
+
+    public void invalidate(String username) {
+        if (username != null) {
+            entries.invalidate(username);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.ebook.service;
+
+import com.ebook.dto.ReadingPosition;
+import com.ebook.model.Ebook;
+import com.ebook.repository.ReadingProgressRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reading positions with write coalescing. Readers report every few seconds, so
+ * reports only replace the latest position per (user, ebook) in memory; a
+ * scheduled flush, and one at shutdown, writes what changed with batched upserts.
+ * Reads check the unflushed state before the database.
+ *
+ * <p>At most {@code max-pending} positions wait in memory, and at most
+ * {@code max-pending-per-user} of them for one user. A report reserves its slot in
+ * both counts before it is buffered; past either limit, reports for other ebooks
+ * are written through immediately instead. Positions whose flush failed are only
+ * queued again within the same limits.
+ *
+ * <p>Reports are checked against the cached catalog: the ebook must exist and the
+ * section, if given, must belong to it.
+ */
+@Service
+public class ReadingProgressService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadingProgressService.class);
+
+    // Newest position wins even if flushes from two instances arrive out of order;
+    // updated_at is assigned last because MySQL applies the assignments in order
+    private static final String UPSERT_SQL = "INSERT INTO reading_progress "
+            + "(user_id, ebook_id, section_id, position_offset, updated_at) VALUES (?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE "
+            + "section_id = CASE WHEN VALUES(updated_at) >= updated_at THEN VALUES(section_id) ELSE section_id END, "
+            + "position_offset = CASE WHEN VALUES(updated_at) >= updated_at "
+            + "THEN VALUES(position_offset) ELSE position_offset END, "
+            + "updated_at = GREATEST(updated_at, VALUES(updated_at))";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReadingProgressRepository readingProgressRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EbookService ebookService;
+
+    @Value("${app.reading-progress.max-pending:100000}")
+    private int maxPending;
+
+    @Value("${app.reading-progress.max-pending-per-user:50}")
+    private int maxPendingPerUser;
+
+    @Value("${app.reading-progress.batch-size:500}")
+    private int batchSize;
+
+    private final Map<Key, ReadingPosition> pending = new ConcurrentHashMap<>();
+    // Drained but not yet committed, so reads during a flush still see them
+    private final Map<Key, ReadingPosition> inFlight = new ConcurrentHashMap<>();
+    // Slots reserved in pending, in total and per user; may briefly run ahead of it
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Map<Long, Integer> pendingPerUser = new ConcurrentHashMap<>();
+    // One flush at a time: the scheduled and shutdown flushes must not interleave batches for the same key
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @PostConstruct
+    void registerMeters() {
+        Gauge.builder("reading_progress.pending", pending, Map::size)
+                .register(meterRegistry);
+    }
+
+    public ReadingPosition report(Long userId, Long ebookId, Long sectionId, int offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative");
+        }
+
+        Ebook ebook = ebookService.getEbookWithSections(ebookId)
+                .orElseThrow(() -> new NoSuchElementException("Ebook not found with id: " + ebookId));
+        if (sectionId != null && ebook.getSections().stream().noneMatch(section -> sectionId.equals(section.getId()))) {
+            throw new IllegalArgumentException("Section " + sectionId + " does not belong to ebook " + ebookId);
+        }
+
+        Key key = new Key(userId, ebookId);
+        ReadingPosition position = new ReadingPosition(ebookId, sectionId, offset, LocalDateTime.now());
+        if (pending.replace(key, position) != null) {
+            // Already buffered, so it holds a slot
+            return position;
+        }
+        if (!reserve(userId)) {
+            write(List.of(Map.entry(key, position)));
+            return position;
+        }
+        if (pending.put(key, position) != null) {
+            // A concurrent report for the same ebook buffered it first and holds the slot
+            release(userId);
+        }
+        return position;
+    }
+
+    public Optional<ReadingPosition> getPosition(Long userId, Long ebookId) {
+        Key key = new Key(userId, ebookId);
+        ReadingPosition position = pending.get(key);
+        if (position == null) {
+            position = inFlight.get(key);
+        }
+        // Deliberately not a read-only transaction: replicas may not have the last flush yet
+        return position != null ? Optional.of(position) : readingProgressRepository.findPosition(userId, ebookId);
+    }
+
+    /**
+     * The user's most recently read ebooks, newest first.
+     */
+    public List<ReadingPosition> getRecentPositions(Long userId, int limit) {
+        Map<Long, ReadingPosition> byEbook = new HashMap<>();
+        for (ReadingPosition position : readingProgressRepository.findRecentPositions(userId, Limit.of(limit))) {
+            byEbook.put(position.getEbookId(), position);
+        }
+        for (Map<Key, ReadingPosition> unflushed : List.of(inFlight, pending)) {
+            unflushed.forEach((key, position) -> {
+                if (key.userId() == userId) {
+                    byEbook.put(key.ebookId(), position);
+                }
+            });
+        }
+
+        List<ReadingPosition> positions = new ArrayList<>(byEbook.values());
+        positions.sort(Comparator.comparing(ReadingPosition::getUpdatedAt).reversed());
+        return positions.size() > limit ? positions.subList(0, limit) : positions;
+    }
+
+    @Scheduled(fixedDelayString = "${app.reading-progress.flush-interval:PT5S}")
+    @PreDestroy
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<Map.Entry<Key, ReadingPosition>> batch = new ArrayList<>();
+            for (Map.Entry<Key, ReadingPosition> entry : pending.entrySet()) {
+                inFlight.put(entry.getKey(), entry.getValue());
+                // Only removed if no newer report replaced it meanwhile; a newer one waits for the next flush
+                if (pending.remove(entry.getKey(), entry.getValue())) {
+                    release(entry.getKey().userId());
+                }
+                batch.add(Map.entry(entry.getKey(), entry.getValue()));
+
+                if (batch.size() == batchSize) {
+                    write(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void write(List<Map.Entry<Key, ReadingPosition>> batch) {
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, batch.stream().map(ReadingProgressService::row).toList());
+        } catch (DataIntegrityViolationException e) {
+            // A user, ebook or section was deleted after the report; upsert one by one and drop those rows
+            for (Map.Entry<Key, ReadingPosition> entry : batch) {
+                try {
+                    jdbcTemplate.update(UPSERT_SQL, row(entry));
+                } catch (DataIntegrityViolationException rowError) {
+                    log.debug("Dropping reading position for {}: {}", entry.getKey(), rowError.getMessage());
+                }
+            }
+        } catch (DataAccessException e) {
+            // Keep the positions for the next flush unless the reader has moved on since. Past the
+            // limits they are dropped; the reader's next report carries a newer position anyway
+            log.warn("Could not flush {} reading positions: {}", batch.size(), e.getMessage());
+            int dropped = 0;
+            for (Map.Entry<Key, ReadingPosition> entry : batch) {
+                long userId = entry.getKey().userId();
+                if (pending.containsKey(entry.getKey())) {
+                    continue;
+                }
+                if (!reserve(userId)) {
+                    dropped++;
+                } else if (pending.putIfAbsent(entry.getKey(), entry.getValue()) != null) {
+                    release(userId);
+                }
+            }
+            if (dropped > 0) {
+                log.warn("Dropped {} reading positions past the pending limits", dropped);
+            }
+        } finally {
+            for (Map.Entry<Key, ReadingPosition> entry : batch) {
+                inFlight.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Takes a slot in both the total and the user's count, or neither if either is full.
+     */
+    private boolean reserve(long userId) {
+        if (pendingCount.incrementAndGet() > maxPending) {
+            pendingCount.decrementAndGet();
+            return false;
+        }
+        if (pendingPerUser.merge(userId, 1, Integer::sum) > maxPendingPerUser) {
+            release(userId);
+            return false;
+        }
+        return true;
+    }
+
+    private void release(long userId) {
+        pendingPerUser.computeIfPresent(userId, (id, count) -> count == 1 ? null : count - 1);
+        pendingCount.decrementAndGet();
+    }
+
+    private static Object[] row(Map.Entry<Key, ReadingPosition> entry) {
+        ReadingPosition position = entry.getValue();
+        return new Object[]{entry.getKey().userId(), entry.getKey().ebookId(), position.getSectionId(),
+                position.getOffset(), Timestamp.valueOf(position.getUpdatedAt())};
+    }
+
+    private record Key(long userId, long ebookId) {
+    }
+}
@@ -1,33 +1,286 @@
 package com.ebook.service;
 
+import com.ebook.dto.CursorPage;
+import com.ebook.dto.SectionSearchHit;
+import com.ebook.model.CompressedTextConverter;
+import com.ebook.model.Ebook;
 import com.ebook.model.Section;
+import com.ebook.repository.EbookRepository;
 import com.ebook.repository.SectionRepository;
+import com.ebook.search.SectionSearchIndex;
+import com.ebook.search.Snippets;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Blob;
+import java.sql.SQLException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "app.service", histogram = true)
 public class SectionService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
+    /** Spacing between the order keys of appended or rebalanced sections. */
+    public static final int ORDER_GAP = 1024;
+
     @Autowired
     private SectionRepository sectionRepository;
 
-    public List<Section> getAllSections() {
-        return sectionRepository.findAll();
+    @Autowired
+    private SectionSearchIndex sectionSearchIndex;
+
+    @Autowired
+    private EbookRepository ebookRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    private TransactionTemplate transactionTemplate;
+    private TransactionTemplate afterCommitReads;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        afterCommitReads = new TransactionTemplate(transactionManager);
+        afterCommitReads.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        afterCommitReads.setReadOnly(true);
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<Section> getAllSections(String cursor, int size) {
+        int pageSize = CursorPage.pageSize(size);
+        List<Section> rows = sectionRepository.findByIdGreaterThanOrderByIdAsc(
+                CursorPage.afterId(cursor), Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, Section::getId);
+    }
+
+    /**
+     * Feeds every section to {@code sink} in id order, straight off a database
+     * cursor, clearing the persistence context every batch so memory stays flat.
+     */
+    @Transactional(readOnly = true)
+    public void streamAllSections(Consumer<Section> sink) {
+        try (Stream<Section> rows = sectionRepository.streamAll()) {
+            int[] count = {0};
+            rows.forEach(section -> {
+                sink.accept(section);
+                if (++count[0] % batchSize == 0) {
+                    entityManager.clear();
+                }
+            });
+        }
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Section> getSectionById(Long id) {
         return sectionRepository.findById(id);
     }
 
+    @Cacheable(CatalogCache.EBOOK_SECTIONS)
+    @Transactional(readOnly = true)
     public List<Section> getSectionsByEbookId(Long ebookId) {
         return sectionRepository.findByEbookIdOrderBySectionOrderAsc(ebookId);
     }
 
+    /**
+     * A section's content as stored: gzip bytes for rows written since compression,
+     * otherwise the content gzipped on the fly. Empty when the section does not exist
+     * or has no content. Runs in a transaction so a driver that returns a lazy Blob
+     * can still read it.
+     */
+    @Transactional(readOnly = true)
+    public Optional<byte[]> getCompressedContent(Long id) {
+        return sectionRepository.findStoredContentById(id).map(stored -> {
+            byte[] bytes = toBytes(stored);
+            return CompressedTextConverter.isGzip(bytes)
+                    ? bytes
+                    : CompressedTextConverter.compress(new String(bytes, StandardCharsets.UTF_8));
+        });
+    }
+
+    private static byte[] toBytes(Object stored) {
+        if (stored instanceof byte[] bytes) {
+            return bytes;
+        }
+        if (stored instanceof Blob blob) {
+            try {
+                return blob.getBytes(1, (int) blob.length());
+            } catch (SQLException e) {
+                throw new RuntimeException("Could not read section content", e);
+            }
+        }
+        throw new IllegalStateException("Unexpected content column type: " + stored.getClass().getName());
+    }
+
+    @Transactional(readOnly = true)
+    public Page<SectionSearchHit> searchSections(String query, Long ebookId, int page, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        int pageNumber = Math.max(page, 0);
+        List<List<String>> clauses = SectionSearchIndex.parseQuery(query);
+        SectionSearchIndex.Result result = sectionSearchIndex.search(clauses, ebookId, (long) pageNumber * pageSize, pageSize);
+
+        List<Long> sectionIds = new ArrayList<>();
+        for (SectionSearchIndex.Hit hit : result.hits()) {
+            sectionIds.add(hit.sectionId());
+        }
+        Map<Long, Section> sectionsById = new HashMap<>();
+        for (Section section : sectionRepository.findAllById(sectionIds)) {
+            sectionsById.put(section.getId(), section);
+        }
+
+        List<SectionSearchHit> hits = new ArrayList<>();
+        for (SectionSearchIndex.Hit hit : result.hits()) {
+            Section section = sectionsById.get(hit.sectionId());
+            if (section != null) {
+                hits.add(new SectionSearchHit(hit.ebookId(), hit.sectionId(), section.getTitle(),
+                        Snippets.highlight(section.getContent(), clauses), hit.score()));
+            }
+        }
+        return new PageImpl<>(hits, PageRequest.of(pageNumber, pageSize), result.total());
+    }
+
     public Section createSection(Section section) {
-        return sectionRepository.save(section);
+        if (section.getSectionOrder() == null && section.getEbook() != null) {
+            section.setSectionOrder((int) appendOrder(section.getEbook().getId()));
+        }
+        Section savedSection = sectionRepository.save(section);
+        sectionSearchIndex.index(savedSection);
+        sectionsChanged(ebookId(savedSection), true);
+        return savedSection;
+    }
+
+    /**
+     * Imports a JSON array of sections for one ebook in a single transaction. The
+     * array is read one element at a time and inserted in JDBC batches, clearing
+     * the persistence context after each batch so memory stays flat.
+     *
+     * @return the number of sections imported
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public int importSections(Long ebookId, InputStream json) throws IOException {
+        if (!ebookRepository.existsById(ebookId)) {
+            throw new RuntimeException("Ebook not found with id: " + ebookId);
+        }
+
+        // Indexed only once the import commits, so searches never return sections that roll back
+        List<Long> importedIds = new ArrayList<>();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                indexImported(importedIds);
+            }
+        });
+
+        long nextOrder = appendOrder(ebookId);
+        int appended = 0;
+        int count = 0;
+        List<Section> batch = new ArrayList<>(batchSize);
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of sections");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                Section section = objectMapper.readValue(parser, Section.class);
+                if (section.getTitle() == null || section.getTitle().isBlank()) {
+                    throw new IllegalArgumentException("Section " + (count + 1) + " has no title");
+                }
+                if (section.getSectionOrder() == null) {
+                    if (nextOrder + (long) appended * ORDER_GAP > Integer.MAX_VALUE) {
+                        // Out of keys at the end: write what is pending and re-space everything so far
+                        flushBatch(batch, importedIds);
+                        nextOrder = appendOrder(ebookId);
+                        appended = 0;
+                    }
+                    section.setSectionOrder((int) (nextOrder + (long) appended * ORDER_GAP));
+                    appended++;
+                }
+                section.setId(null);
+                section.setEbook(entityManager.getReference(Ebook.class, ebookId));
+                entityManager.persist(section);
+                batch.add(section);
+                count++;
+
+                if (batch.size() == batchSize) {
+                    flushBatch(batch, importedIds);
+                }
+            }
+            // A truncated body or a non-object element must not commit the sections read so far
+            if (token != JsonToken.END_ARRAY) {
+                throw new IllegalArgumentException("Expected a section object or the end of the array, found "
+                        + (token == null ? "end of input" : token));
+            }
+            if (parser.nextToken() != null) {
+                throw new IllegalArgumentException("Unexpected content after the array of sections");
+            }
+        }
+        flushBatch(batch, importedIds);
+        sectionsChanged(ebookId, true);
+        return count;
+    }
+
+    private void flushBatch(List<Section> batch, List<Long> importedIds) {
+        entityManager.flush();
+        for (Section section : batch) {
+            importedIds.add(section.getId());
+        }
+        batch.clear();
+        entityManager.clear();
+    }
+
+    // Reloads the committed sections batch by batch; the import's own transaction is
+    // finished, so the reads run in a new one
+    private void indexImported(List<Long> importedIds) {
+        for (int from = 0; from < importedIds.size(); from += batchSize) {
+            List<Long> ids = importedIds.subList(from, Math.min(from + batchSize, importedIds.size()));
+            afterCommitReads.executeWithoutResult(status ->
+                    sectionRepository.findAllById(ids).forEach(sectionSearchIndex::index));
+        }
     }
 
     public Section updateSection(Long id, Section sectionDetails) {
@@ -36,20 +289,136 @@ public class SectionService {
 
         section.setTitle(sectionDetails.getTitle());
         section.setContent(sectionDetails.getContent());
-        section.setSectionOrder(sectionDetails.getSectionOrder());
+        if (sectionDetails.getSectionOrder() != null) {
+            section.setSectionOrder(sectionDetails.getSectionOrder());
+        }
+
+        // Flushed here so a content length violation surfaces as itself, not as a failed commit
+        Section savedSection = sectionRepository.saveAndFlush(section);
+        sectionSearchIndex.index(savedSection);
+        sectionsChanged(ebookId(savedSection), false);
+        return savedSection;
+    }
+
+    /**
+     * Moves a section directly before or after another section of the same ebook.
+     * Only the moved row is written unless there is no free key left between its
+     * new neighbours, in which case the ebook's sections are re-spaced first.
+     */
+    @Transactional
+    public Section moveSection(Long id, Long beforeId, Long afterId) {
+        if ((beforeId == null) == (afterId == null)) {
+            throw new IllegalArgumentException("Specify exactly one of before or after");
+        }
+        Long anchorId = beforeId != null ? beforeId : afterId;
+        if (anchorId.equals(id)) {
+            throw new IllegalArgumentException("A section cannot be moved relative to itself");
+        }
+
+        Section section = sectionRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Section not found with id: " + id));
+        Long ebookId = section.getEbook().getId();
+
+        // Serialises reorders within one ebook so concurrent moves cannot take the same key
+        ebookRepository.findForUpdate(ebookId);
+        entityManager.refresh(section);
+
+        Section anchor = sectionRepository.findById(anchorId)
+                .orElseThrow(() -> new RuntimeException("Section not found with id: " + anchorId));
+        if (!anchor.getEbook().getId().equals(ebookId)) {
+            throw new IllegalArgumentException("Sections belong to different ebooks");
+        }
 
+        if (sectionRepository.existsByEbookIdAndSectionOrderIsNull(ebookId)) {
+            rebalance(ebookId);
+        }
+        Integer order = orderBeside(ebookId, section, anchor, beforeId != null);
+        if (order == null) {
+            rebalance(ebookId);
+            order = orderBeside(ebookId, section, anchor, beforeId != null);
+        }
+
+        section.setSectionOrder(order);
+        sectionsChanged(ebookId, false);
         return sectionRepository.save(section);
     }
 
+    private Integer orderBeside(Long ebookId, Section section, Section anchor, boolean before) {
+        int anchorOrder = anchor.getSectionOrder();
+        Optional<Section> neighbour = before
+                ? sectionRepository.findFirstByEbookIdAndSectionOrderLessThanAndIdNotOrderBySectionOrderDesc(
+                        ebookId, anchorOrder, section.getId())
+                : sectionRepository.findFirstByEbookIdAndSectionOrderGreaterThanAndIdNotOrderBySectionOrderAsc(
+                        ebookId, anchorOrder, section.getId());
+        long bound = neighbour
+                .map(s -> (long) s.getSectionOrder())
+                .orElse(before ? anchorOrder - 2L * ORDER_GAP : anchorOrder + 2L * ORDER_GAP);
+
+        long order = (bound + anchorOrder) / 2;
+        if (Math.abs(bound - anchorOrder) < 2 || order < Integer.MIN_VALUE || order > Integer.MAX_VALUE) {
+            return null;
+        }
+        return (int) order;
+    }
+
+    /**
+     * The order key after the ebook's last section. Once that would run past the
+     * int range, the ebook's sections are re-spaced first.
+     */
+    private long appendOrder(Long ebookId) {
+        long next = nextOrder(ebookId);
+        if (next <= Integer.MAX_VALUE) {
+            return next;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            ebookRepository.findForUpdate(ebookId);
+            rebalance(ebookId);
+        });
+        next = nextOrder(ebookId);
+        if (next > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Ebook " + ebookId + " has too many sections to append more");
+        }
+        return next;
+    }
+
+    private void rebalance(Long ebookId) {
+        List<Section> sections = sectionRepository.findByEbookIdOrderBySectionOrderAsc(ebookId);
+        for (int i = 0; i < sections.size(); i++) {
+            sections.get(i).setSectionOrder((i + 1) * ORDER_GAP);
+        }
+        entityManager.flush();
+    }
+
+    private long nextOrder(Long ebookId) {
+        Integer maxOrder = sectionRepository.findMaxSectionOrder(ebookId);
+        return maxOrder == null ? ORDER_GAP : (long) maxOrder + ORDER_GAP;
+    }
+
     public void deleteSection(Long id) {
         Section section = sectionRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Section not found with id: " + id));
 
         sectionRepository.deleteById(id);
+        sectionSearchIndex.remove(id);
+        sectionsChanged(ebookId(section), true);
     }
 
     public void deleteSectionsByEbookId(Long ebookId) {
         List<Section> sections = sectionRepository.findByEbookId(ebookId);
         sectionRepository.deleteAll(sections);
+        sectionSearchIndex.removeEbook(ebookId);
+        sectionsChanged(ebookId, true);
+    }
+
+    private void sectionsChanged(Long ebookId, boolean countChanged) {
+        if (ebookId != null) {
+            ebookRepository.touch(ebookId, LocalDateTime.now());
+        }
+        catalogCache.sectionsChanged(ebookId, countChanged);
+    }
+
+    private static Long ebookId(Section section) {
+        return section.getEbook() != null ? section.getEbook().getId() : null;
     }
-}
\ No newline at end of file
+}
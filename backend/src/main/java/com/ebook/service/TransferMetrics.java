@@ -0,0 +1,39 @@
+package com.ebook.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Byte counts for file transfers. Each summary's sum over time is the throughput;
+ * its histogram gives the transfer size distribution.
+ */
+@Component
+public class TransferMetrics {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * @param source how the bytes arrived: {@code multipart}, {@code chunk} or {@code import}
+     */
+    public void uploaded(String source, long bytes) {
+        summary("ebook.upload.bytes", "source", source).record(bytes);
+    }
+
+    /**
+     * @param transport {@code sendfile} or {@code stream}
+     */
+    public void downloaded(String transport, long bytes) {
+        summary("ebook.download.bytes", "transport", transport).record(bytes);
+    }
+
+    private DistributionSummary summary(String name, String tagKey, String tagValue) {
+        return DistributionSummary.builder(name)
+                .baseUnit("bytes")
+                .tag(tagKey, tagValue)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,292 @@
+package com.ebook.service;
+
+import com.ebook.dto.UploadStatus;
+import com.ebook.model.Ebook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resumable uploads: a session preallocates its target file, chunks are written
+ * at their offsets with positional channel writes (in any order, concurrently),
+ * and the received ranges are tracked until the client commits.
+ *
+ * <p>Since every session reserves its full size on disk up front, a user may hold
+ * at most {@code max-sessions-per-user} open sessions and all sessions together at
+ * most {@code max-reserved} bytes; past either limit new sessions are refused.
+ */
+@Service
+public class UploadSessionService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadSessionService.class);
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final byte[] PDF_MAGIC = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+
+    @Autowired
+    private BlobStorageService blobStorageService;
+
+    @Autowired
+    private EbookService ebookService;
+
+    @Autowired
+    private TransferMetrics transferMetrics;
+
+    @Value("${app.uploads.max-size:2GB}")
+    private DataSize maxSize;
+
+    @Value("${app.uploads.session-ttl:24h}")
+    private Duration sessionTtl;
+
+    @Value("${app.uploads.max-sessions-per-user:3}")
+    private int maxSessionsPerUser;
+
+    @Value("${app.uploads.max-reserved:20GB}")
+    private DataSize maxReserved;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> sessionsPerUser = new ConcurrentHashMap<>();
+    private final AtomicLong reservedBytes = new AtomicLong();
+
+    public UploadStatus createSession(Long userId, long size) throws IOException {
+        if (size <= 0 || size > maxSize.toBytes()) {
+            throw new IllegalArgumentException("Upload size must be between 1 and " + maxSize.toBytes() + " bytes");
+        }
+
+        reserve(userId, size);
+        Path file = null;
+        try {
+            file = blobStorageService.createTempFile("session-");
+            try (RandomAccessFile preallocated = new RandomAccessFile(file.toFile(), "rw")) {
+                preallocated.setLength(size);
+            }
+        } catch (IOException | RuntimeException e) {
+            unreserve(userId, size);
+            if (file != null) {
+                Files.deleteIfExists(file);
+            }
+            throw e;
+        }
+
+        UploadSession session = new UploadSession(UUID.randomUUID().toString(), userId, size, file);
+        sessions.put(session.id, session);
+        return session.status();
+    }
+
+    public UploadStatus getStatus(String uploadId, Long userId) {
+        return ownedSession(uploadId, userId).status();
+    }
+
+    public UploadStatus writeChunk(String uploadId, Long userId, long offset, InputStream body) throws IOException {
+        UploadSession session = ownedSession(uploadId, userId);
+        if (session.committing.get()) {
+            throw new IllegalStateException("Upload is being committed");
+        }
+        if (offset < 0 || offset >= session.size) {
+            throw new IllegalArgumentException("Offset " + offset + " is outside the upload");
+        }
+
+        long position = offset;
+        try (FileChannel channel = FileChannel.open(session.file, StandardOpenOption.WRITE)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                if (position + read > session.size) {
+                    throw new IllegalArgumentException("Chunk runs past the declared upload size");
+                }
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                while (chunk.hasRemaining()) {
+                    position += channel.write(chunk, position);
+                }
+            }
+        } finally {
+            // Keep whatever arrived before a dropped connection so the client resumes from there
+            if (position > offset) {
+                session.markReceived(offset, position);
+                transferMetrics.uploaded("chunk", position - offset);
+            }
+        }
+        return session.status();
+    }
+
+    /**
+     * Creates the ebook from a complete upload. The session and its file are kept
+     * until the ebook is saved, so a commit that fails can be retried.
+     */
+    public Ebook commit(String uploadId, Long userId, Ebook ebook) throws IOException {
+        UploadSession session = ownedSession(uploadId, userId);
+        if (!session.committing.compareAndSet(false, true)) {
+            throw new IllegalStateException("Upload is already being committed");
+        }
+        try {
+            if (!session.isComplete()) {
+                throw new IllegalStateException("Upload is missing bytes; " + session.receivedBytes()
+                        + " of " + session.size + " received");
+            }
+            if (!isPdf(session.file)) {
+                throw new IllegalArgumentException("Only PDF files are allowed");
+            }
+
+            // createEbook consumes the file it stores, so it gets a second link to the upload
+            Ebook savedEbook = ebookService.createEbook(ebook, linkToUpload(session.file));
+            if (sessions.remove(uploadId, session)) {
+                unreserve(session.userId, session.size);
+            }
+            Files.deleteIfExists(session.file);
+            return savedEbook;
+        } finally {
+            session.committing.set(false);
+        }
+    }
+
+    public void abort(String uploadId, Long userId) throws IOException {
+        UploadSession session = ownedSession(uploadId, userId);
+        if (sessions.remove(uploadId, session)) {
+            unreserve(session.userId, session.size);
+            Files.deleteIfExists(session.file);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.uploads.cleanup-interval:PT10M}")
+    public void expireStaleSessions() {
+        long cutoff = System.currentTimeMillis() - sessionTtl.toMillis();
+        for (UploadSession session : sessions.values()) {
+            if (session.lastActivity < cutoff && sessions.remove(session.id, session)) {
+                unreserve(session.userId, session.size);
+                try {
+                    Files.deleteIfExists(session.file);
+                } catch (IOException e) {
+                    log.warn("Could not delete expired upload {}: {}", session.id, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void reserve(Long userId, long size) {
+        sessionsPerUser.compute(userId, (id, open) -> {
+            int count = open == null ? 0 : open;
+            if (count >= maxSessionsPerUser) {
+                throw new IllegalStateException("At most " + maxSessionsPerUser
+                        + " uploads may be open at once; commit or abort one first");
+            }
+            return count + 1;
+        });
+        long reserved;
+        do {
+            reserved = reservedBytes.get();
+            if (reserved + size > maxReserved.toBytes()) {
+                sessionsPerUser.computeIfPresent(userId, (id, open) -> open == 1 ? null : open - 1);
+                throw new IllegalStateException("Upload space is exhausted; try again later");
+            }
+        } while (!reservedBytes.compareAndSet(reserved, reserved + size));
+    }
+
+    private void unreserve(Long userId, long size) {
+        reservedBytes.addAndGet(-size);
+        sessionsPerUser.computeIfPresent(userId, (id, open) -> open == 1 ? null : open - 1);
+    }
+
+    private UploadSession ownedSession(String uploadId, Long userId) {
+        UploadSession session = sessions.get(uploadId);
+        if (session == null || !session.userId.equals(userId)) {
+            throw new RuntimeException("Upload session not found: " + uploadId);
+        }
+        return session;
+    }
+
+    private Path linkToUpload(Path file) throws IOException {
+        Path link = blobStorageService.createTempFile("commit-");
+        Files.delete(link);
+        try {
+            Files.createLink(link, file);
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(file, link);
+        }
+        return link;
+    }
+
+    private static boolean isPdf(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] header = in.readNBytes(PDF_MAGIC.length);
+            return Arrays.equals(header, PDF_MAGIC);
+        }
+    }
+
+    private static final class UploadSession {
+        private final String id;
+        private final Long userId;
+        private final long size;
+        private final Path file;
+        // start -> end (exclusive) of each received range, kept merged
+        private final TreeMap<Long, Long> ranges = new TreeMap<>();
+        private volatile long lastActivity = System.currentTimeMillis();
+        private final AtomicBoolean committing = new AtomicBoolean();
+
+        UploadSession(String id, Long userId, long size, Path file) {
+            this.id = id;
+            this.userId = userId;
+            this.size = size;
+            this.file = file;
+        }
+
+        synchronized void markReceived(long start, long end) {
+            Map.Entry<Long, Long> before = ranges.floorEntry(start);
+            if (before != null && before.getValue() >= start) {
+                start = before.getKey();
+                end = Math.max(end, before.getValue());
+            }
+            Map.Entry<Long, Long> next = ranges.ceilingEntry(start);
+            while (next != null && next.getKey() <= end) {
+                end = Math.max(end, next.getValue());
+                ranges.remove(next.getKey());
+                next = ranges.ceilingEntry(start);
+            }
+            ranges.put(start, end);
+            lastActivity = System.currentTimeMillis();
+        }
+
+        synchronized long receivedBytes() {
+            long total = 0;
+            for (Map.Entry<Long, Long> range : ranges.entrySet()) {
+                total += range.getValue() - range.getKey();
+            }
+            return total;
+        }
+
+        synchronized boolean isComplete() {
+            Map.Entry<Long, Long> first = ranges.firstEntry();
+            return first != null && first.getKey() == 0 && first.getValue() == size;
+        }
+
+        synchronized UploadStatus status() {
+            List<long[]> received = new ArrayList<>();
+            for (Map.Entry<Long, Long> range : ranges.entrySet()) {
+                received.add(new long[]{range.getKey(), range.getValue()});
+            }
+            return new UploadStatus(id, size, receivedBytes(), received, isComplete());
+        }
+    }
+}
@@ -1,38 +1,65 @@
 package com.ebook.service;
 
+import com.ebook.config.AuthenticatedUser;
+import com.ebook.dto.CursorPage;
 import com.ebook.model.Role;
 import com.ebook.model.User;
 import com.ebook.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
+@Timed(value = "app.service", histogram = true)
 public class UserService implements UserDetailsService {
 
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private EbookService ebookService;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private AsyncTaskExecutor taskExecutor;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        AuthenticatedUser cached = principalCache.get(username);
+        if (cached != null) {
+            return cached;
+        }
+
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
-        return org.springframework.security.core.userdetails.User
-                .withUsername(user.getUsername())
-                .password(user.getPassword())
-                .roles(user.getRole().name())
-                .build();
+        AuthenticatedUser principal = new AuthenticatedUser(user);
+        principalCache.put(principal);
+        return principal;
+    }
+
+    public User getReference(Long id) {
+        return userRepository.getReferenceById(id);
     }
 
     public User findByUsername(String username) {
@@ -40,45 +67,93 @@ public class UserService implements UserDetailsService {
                 .orElse(null);
     }
 
-    public User registerUser(User user) {
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-        if (user.getRole() == null) {
-            user.setRole(Role.USER);
-        }
-        user.setCreatedAt(LocalDateTime.now());
-        return userRepository.save(user);
+    /**
+     * Hashes the password on the hashing pool and saves the user on the task
+     * executor once it is done.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if the hashing pool is saturated
+     */
+    public CompletableFuture<User> registerUser(User user) {
+        return passwordHashingService.encode(user.getPassword()).thenApplyAsync(encoded -> {
+            user.setPassword(encoded);
+            if (user.getRole() == null) {
+                user.setRole(Role.USER);
+            }
+            user.setCreatedAt(LocalDateTime.now());
+            return userRepository.save(user);
+        }, withCallerContext());
     }
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public CursorPage<User> getAllUsers(String cursor, int size) {
+        int pageSize = CursorPage.pageSize(size);
+        List<User> rows = userRepository.findByIdGreaterThanOrderByIdAsc(
+                CursorPage.afterId(cursor), Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, User::getId);
     }
 
     public Optional<User> getUserById(Long id) {
         return userRepository.findById(id);
     }
 
-    public User updateUser(Long id, User userDetails) {
+    /**
+     * Applies the changes and saves them on the task executor; a new password is
+     * hashed on the hashing pool first.
+     *
+     * @throws RuntimeException if the user does not exist
+     * @throws java.util.concurrent.RejectedExecutionException if the hashing pool is saturated
+     */
+    public CompletableFuture<User> updateUser(Long id, User userDetails) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+        String previousUsername = user.getUsername();
 
         user.setUsername(userDetails.getUsername());
         user.setEmail(userDetails.getEmail());
 
-        if (userDetails.getPassword() != null && !userDetails.getPassword().isEmpty()) {
-            user.setPassword(passwordEncoder.encode(userDetails.getPassword()));
-        }
-
         if (userDetails.getRole() != null) {
             user.setRole(userDetails.getRole());
         }
 
-        return userRepository.save(user);
+        CompletableFuture<String> password = userDetails.getPassword() != null && !userDetails.getPassword().isEmpty()
+                ? passwordHashingService.encode(userDetails.getPassword())
+                : CompletableFuture.completedFuture(user.getPassword());
+
+        return password.thenApplyAsync(encoded -> {
+            user.setPassword(encoded);
+            User savedUser = userRepository.save(user);
+            principalCache.invalidate(previousUsername);
+            principalCache.invalidate(savedUser.getUsername());
+            return savedUser;
+        }, withCallerContext());
+    }
+
+    /**
+     * Re-hashes the password with the configured BCrypt cost and stores it; a
+     * login calls this after the old hash matched.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if the hashing pool is saturated
+     */
+    public CompletableFuture<Void> rehashPassword(User user, String rawPassword) {
+        return passwordHashingService.encode(rawPassword).thenAcceptAsync(encoded -> {
+            userRepository.updatePassword(user.getId(), encoded);
+            principalCache.invalidate(user.getUsername());
+        }, withCallerContext());
+    }
+
+    // Database work after a hash runs on the task executor, never on the small hashing
+    // pool; carrying the caller's security context keeps replica routing's
+    // read-your-writes tracking attached to the right user
+    private Executor withCallerContext() {
+        return new DelegatingSecurityContextExecutor(taskExecutor, SecurityContextHolder.getContext());
     }
 
     public void deleteUser(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+        // Remove the user's ebooks one by one so their files and index entries are released too
+        ebookService.deleteEbooksByUserId(id);
         userRepository.deleteById(id);
+        principalCache.invalidate(user.getUsername());
     }
 
     public boolean existsByUsername(String username) {
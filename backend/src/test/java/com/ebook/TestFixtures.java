@@ -0,0 +1,54 @@
+package com.ebook;
+
+import com.ebook.model.Ebook;
+import com.ebook.model.Role;
+import com.ebook.model.Section;
+import com.ebook.model.User;
+import com.ebook.repository.UserRepository;
+
+import java.util.UUID;
+
+/**
+ * Users and ebooks for tests that share a Spring context, and so a database,
+ * with other test classes.
+ */
+public final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    /**
+     * Saves a user named {@code prefix-<uuid>}, so no two tests collide on the
+     * unique username and email.
+     */
+    public static User user(UserRepository userRepository, String prefix, Role role) {
+        String name = prefix + "-" + UUID.randomUUID();
+        User user = new User();
+        user.setUsername(name);
+        user.setPassword("x");
+        user.setEmail(name + "@example.com");
+        user.setRole(role);
+        return userRepository.save(user);
+    }
+
+    /**
+     * An unsaved ebook with {@code sections} chapters titled "Chapter 0" onwards,
+     * in that order. The owner may be null.
+     */
+    public static Ebook ebook(String title, String category, User owner, int sections) {
+        Ebook ebook = new Ebook();
+        ebook.setTitle(title);
+        ebook.setAuthor("Author");
+        ebook.setCategory(category);
+        ebook.setUser(owner);
+        for (int i = 0; i < sections; i++) {
+            Section section = new Section();
+            section.setTitle("Chapter " + i);
+            section.setContent("text");
+            section.setSectionOrder(i);
+            section.setEbook(ebook);
+            ebook.getSections().add(section);
+        }
+        return ebook;
+    }
+}
@@ -0,0 +1,78 @@
+package com.ebook.config;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "testSecretKeyForJWTTokenGenerationThatIsAtLeast256BitsLongForHS256";
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 60_000L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheSize", 2);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+    }
+
+    @Test
+    void verifiesIssuedTokensRepeatedly() {
+        String token = jwtUtil.generateToken("alice");
+
+        assertThat(jwtUtil.verify(token).username()).isEqualTo("alice");
+        assertThat(jwtUtil.verify(token)).isSameAs(jwtUtil.verify(token));
+        assertThat(jwtUtil.validateToken(token)).isTrue();
+    }
+
+    @Test
+    void staysCorrectPastTheCacheSize() {
+        for (int i = 0; i < 20; i++) {
+            String token = jwtUtil.generateToken("user" + i);
+            assertThat(jwtUtil.extractUsername(token)).isEqualTo("user" + i);
+        }
+    }
+
+    @Test
+    void rejectsTokensWithoutExpiration() {
+        String token = Jwts.builder()
+                .setSubject("mallory")
+                .setIssuedAt(new Date())
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThatThrownBy(() -> jwtUtil.verify(token)).isInstanceOf(JwtException.class);
+        assertThat(jwtUtil.validateToken(token)).isFalse();
+    }
+
+    @Test
+    void rejectsForgedAndExpiredTokens() {
+        String forged = Jwts.builder()
+                .setSubject("mallory")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor("someOtherSecretThatIsAlsoAtLeast256BitsLongForHS256Alg".getBytes(
+                        StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+        String expired = Jwts.builder()
+                .setSubject("alice")
+                .setExpiration(new Date(System.currentTimeMillis() - 1_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThat(jwtUtil.validateToken(forged)).isFalse();
+        assertThat(jwtUtil.validateToken(expired)).isFalse();
+    }
+}
@@ -0,0 +1,130 @@
+package com.ebook.config;
+
+import com.ebook.TestFixtures;
+import com.ebook.dto.EbookSummary;
+import com.ebook.model.Ebook;
+import com.ebook.model.Role;
+import com.ebook.model.Section;
+import com.ebook.model.User;
+import com.ebook.perf.EmbeddedReplicaSync;
+import com.ebook.repository.EbookRepository;
+import com.ebook.repository.UserRepository;
+import com.ebook.service.EbookService;
+import com.ebook.service.SectionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Read/write splitting against two embedded H2 instances, the replica profile's
+ * local setup. Replication and heartbeats are driven by hand, so the replica only
+ * sees what the primary had at the last {@link #replicate()}.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routingprimary;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "app.datasource.replica.urls=jdbc:h2:mem:routingreplica;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "app.datasource.replica.max-lag=PT1H",
+        "app.datasource.replica.heartbeat-interval=PT1H",
+        "app.perf.replica.sync-interval=PT1H"
+})
+@ActiveProfiles({"test", "replica"})
+class ReplicaRoutingTest {
+
+    @Autowired
+    private EbookService ebookService;
+
+    @Autowired
+    private SectionService sectionService;
+
+    @Autowired
+    private EbookRepository ebookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    private EmbeddedReplicaSync embeddedReplicaSync;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private User owner;
+    private String category;
+
+    @BeforeEach
+    void setUp() {
+        owner = TestFixtures.user(userRepository, "routing", Role.USER);
+        category = owner.getUsername();
+        replicate();
+        cacheManager.getCacheNames().forEach(cache -> cacheManager.getCache(cache).clear());
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyServiceReadsGoToTheReplica() {
+        Long id = ebookRepository.save(ebook("Written after the last sync")).getId();
+
+        assertThat(ebookService.getEbookById(id)).isEmpty();
+
+        replicate();
+        assertThat(ebookService.getEbookById(id)).isPresent();
+    }
+
+    @Test
+    void cachedReadsAreLoadedFromThePrimary() {
+        Long id = ebookRepository.save(TestFixtures.ebook("Cached from the primary", category, owner, 1)).getId();
+
+        assertThat(ebookService.getEbookById(id)).isEmpty();
+        assertThat(ebookService.getEbookWithSections(id)).isPresent();
+        assertThat(sectionService.getSectionsByEbookId(id)).extracting(Section::getTitle)
+                .containsExactly("Chapter 0");
+        List<EbookSummary> listed = ebookService.getEbooksByCategory(category, null, 20).getItems();
+        assertThat(listed).extracting(EbookSummary::getId).containsExactly(id);
+    }
+
+    @Test
+    void aUsersReadsStayOnThePrimaryAfterTheirWrite() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(owner.getUsername(), null, List.of()));
+
+        Long id = ebookService.createEbook(ebook("Read your writes"), (MultipartFile) null).getId();
+        assertThat(ebookService.getEbookById(id)).isPresent();
+
+        // Another user is not sticky, so still reads the lagging replica
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("someone-else", null, List.of()));
+        assertThat(ebookService.getEbookById(id)).isEmpty();
+    }
+
+    /**
+     * Copies the primary to the replica. The first beat gives the copy a heartbeat
+     * newer than every earlier write; the second reads that heartbeat back.
+     */
+    private void replicate() {
+        replicaLagMonitor.beat();
+        embeddedReplicaSync.sync();
+        replicaLagMonitor.beat();
+    }
+
+    private Ebook ebook(String title) {
+        return TestFixtures.ebook(title, category, owner, 0);
+    }
+}
@@ -0,0 +1,163 @@
+package com.ebook.controller;
+
+import com.ebook.config.JwtUtil;
+import com.ebook.model.Ebook;
+import com.ebook.model.Role;
+import com.ebook.model.Section;
+import com.ebook.model.User;
+import com.ebook.repository.EbookRepository;
+import com.ebook.repository.UserRepository;
+import com.ebook.search.EbookSearchIndex;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Listing endpoints must issue a fixed number of statements however many ebooks
+ * and sections they return. Counts come from the per-request query metric that
+ * QueryCountFilter records.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class ListingQueryCountTest {
+
+    private static final int EBOOKS = 6;
+    private static final int SECTIONS_PER_EBOOK = 4;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EbookRepository ebookRepository;
+
+    @Autowired
+    private EbookSearchIndex ebookSearchIndex;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private String token;
+    private Long ownerId;
+    private Long firstEbookId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        User owner = new User();
+        owner.setUsername("listing-owner");
+        owner.setPassword("x");
+        owner.setEmail("listing-owner@example.com");
+        owner.setRole(Role.ADMIN);
+        owner = userRepository.save(owner);
+        ownerId = owner.getId();
+
+        for (int i = 0; i < EBOOKS; i++) {
+            Ebook ebook = new Ebook();
+            ebook.setTitle("Listing volume " + i);
+            ebook.setAuthor("Author");
+            ebook.setCategory("listing");
+            ebook.setUser(owner);
+            for (int s = 0; s < SECTIONS_PER_EBOOK; s++) {
+                Section section = new Section();
+                section.setTitle("Chapter " + s);
+                section.setContent("Some content for chapter " + s);
+                section.setSectionOrder(s);
+                section.setEbook(ebook);
+                ebook.getSections().add(section);
+            }
+            ebook = ebookRepository.save(ebook);
+            ebookSearchIndex.index(ebook);
+            if (firstEbookId == null) {
+                firstEbookId = ebook.getId();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        token = jwtUtil.generateToken(owner.getUsername());
+        // Loads and caches the principal so it does not count against the endpoints
+        mockMvc.perform(get("/api/ebooks/facets").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            // url, matched pattern, statements
+            "/api/ebooks, /api/ebooks, 1",
+            "/api/ebooks/category/listing, /api/ebooks/category/{category}, 1",
+            "/api/ebooks/user/{owner}, /api/ebooks/user/{userId}, 1",
+            "/api/ebooks/my-ebooks, /api/ebooks/my-ebooks, 1",
+            "/api/users/{owner}/ebooks, /api/users/{id}/ebooks, 1",
+            "/api/ebooks/search?keyword=listing, /api/ebooks/search, 1",
+            "/api/sections/ebook/{ebook}, /api/sections/ebook/{ebookId}, 1",
+            "/api/sections, /api/sections, 1",
+            "/api/users, /api/users, 1"
+    })
+    void listingIssuesAFixedNumberOfStatements(String url, String pattern, int statements) throws Exception {
+        String path = url.replace("{owner}", ownerId.toString()).replace("{ebook}", firstEbookId.toString());
+
+        assertThat(statementsFor(path, pattern)).isEqualTo(statements);
+    }
+
+    @Test
+    void sectionsAreListedInOrderAndRevalidatedWithoutAStatement() throws Exception {
+        String path = "/api/sections/ebook/" + firstEbookId;
+        String etag = mockMvc.perform(get(path).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].sectionOrder").value(contains(0, 1, 2, 3)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        double before = totalStatements("/api/sections/ebook/{ebookId}");
+        mockMvc.perform(get(path).header("Authorization", "Bearer " + token)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        assertThat(totalStatements("/api/sections/ebook/{ebookId}") - before).isZero();
+    }
+
+    private double statementsFor(String path, String pattern) throws Exception {
+        double before = totalStatements(pattern);
+        mockMvc.perform(get(path).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        return totalStatements(pattern) - before;
+    }
+
+    private double totalStatements(String pattern) {
+        DistributionSummary summary = meterRegistry.find("http.server.requests.queries")
+                .tag("method", "GET")
+                .tag("uri", pattern)
+                .summary();
+        return summary != null ? summary.totalAmount() : 0;
+    }
+}
@@ -0,0 +1,130 @@
+package com.ebook.controller;
+
+import com.ebook.config.JwtUtil;
+import com.ebook.model.User;
+import com.ebook.repository.UserRepository;
+import com.ebook.service.PasswordHashingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Register and user update release the servlet thread while the password is hashed,
+ * and answer 503 when the hashing pool turns work away.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PasswordHashingEndpointsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @SpyBean
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @MockBean
+    private PasswordHashingService passwordHashingService;
+
+    @Test
+    void registerCompletesAsynchronously() throws Exception {
+        when(passwordHashingService.encode(any())).thenReturn(CompletableFuture.completedFuture("hashed"));
+
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"async-reg\",\"password\":\"secret\",\"email\":\"async-reg@example.com\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isCreated());
+
+        assertThat(userRepository.findByUsername("async-reg")).get()
+                .extracting(User::getPassword)
+                .isEqualTo("hashed");
+    }
+
+    @Test
+    void theSaveDoesNotRunOnTheHashingThread() throws Exception {
+        CompletableFuture<String> hashed = new CompletableFuture<>();
+        when(passwordHashingService.encode(any())).thenReturn(hashed);
+        AtomicReference<String> savedOn = new AtomicReference<>();
+        doAnswer(invocation -> {
+            savedOn.set(Thread.currentThread().getName());
+            // The spy wraps a repository proxy, so delegate instead of calling a real method
+            return mockingDetails(userRepository).getMockCreationSettings().getDefaultAnswer().answer(invocation);
+        }).when(userRepository).save(any(User.class));
+
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"pool-reg\",\"password\":\"secret\",\"email\":\"pool-reg@example.com\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        Thread hashing = new Thread(() -> hashed.complete("hashed"), "password-hashing-test");
+        hashing.start();
+        hashing.join();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isCreated());
+
+        assertThat(savedOn.get()).isNotNull().isNotEqualTo("password-hashing-test");
+    }
+
+    @Test
+    void registerAnswers503WhenThePoolIsFull() throws Exception {
+        when(passwordHashingService.encode(any())).thenThrow(new RejectedExecutionException("full"));
+
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"busy-reg\",\"password\":\"secret\",\"email\":\"busy-reg@example.com\"}"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+
+        assertThat(userRepository.existsByUsername("busy-reg")).isFalse();
+    }
+
+    @Test
+    void updateAnswers503WhenThePoolIsFullAnd404ForUnknownUsers() throws Exception {
+        when(passwordHashingService.encode(any())).thenThrow(new RejectedExecutionException("full"));
+        String token = jwtUtil.generateToken("admin");
+        Long adminId = userRepository.findByUsername("admin").orElseThrow().getId();
+
+        MvcResult busy = mockMvc.perform(put("/api/users/" + adminId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"admin\",\"email\":\"admin@ebook.com\",\"password\":\"new\"}"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(busy)).andExpect(status().isServiceUnavailable());
+
+        MvcResult missing = mockMvc.perform(put("/api/users/999999")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"ghost\",\"email\":\"ghost@example.com\"}"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(missing)).andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,79 @@
+package com.ebook.controller;
+
+import com.ebook.TestFixtures;
+import com.ebook.config.JwtUtil;
+import com.ebook.model.Role;
+import com.ebook.repository.UserRepository;
+import com.ebook.service.EbookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Only a missing ebook is a 404; a failing database is left to surface as a
+ * server error.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReadingProgressControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @MockBean
+    private EbookService ebookService;
+
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        token = jwtUtil.generateToken(TestFixtures.user(userRepository, "progress", Role.USER).getUsername());
+    }
+
+    @Test
+    void unknownEbookIsNotFound() throws Exception {
+        when(ebookService.getEbookWithSections(anyLong())).thenReturn(Optional.empty());
+
+        report(1L).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void databaseFailuresAreNotReportedAsNotFound() {
+        when(ebookService.getEbookWithSections(anyLong()))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+        // MockMvc rethrows what a servlet container would answer with a 500
+        assertThatThrownBy(() -> report(1L))
+                .hasCauseInstanceOf(DataAccessResourceFailureException.class);
+    }
+
+    private ResultActions report(Long ebookId) throws Exception {
+        return mockMvc.perform(put("/api/progress/{ebookId}", ebookId)
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"offset\":0}"));
+    }
+}
@@ -0,0 +1,149 @@
+package com.ebook.controller;
+
+import com.ebook.TestFixtures;
+import com.ebook.config.JwtUtil;
+import com.ebook.model.Role;
+import com.ebook.model.Section;
+import com.ebook.model.User;
+import com.ebook.repository.EbookRepository;
+import com.ebook.repository.SectionRepository;
+import com.ebook.repository.UserRepository;
+import com.ebook.search.SectionSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The bulk section import commits all sections or none, and answers 400 for any
+ * body it cannot import completely.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SectionImportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EbookRepository ebookRepository;
+
+    @Autowired
+    private SectionRepository sectionRepository;
+
+    @Autowired
+    private SectionSearchIndex sectionSearchIndex;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private String token;
+    private Long ebookId;
+
+    @BeforeEach
+    void setUp() {
+        User owner = TestFixtures.user(userRepository, "import", Role.USER);
+        ebookId = ebookRepository.save(TestFixtures.ebook("Import target", "import", owner, 0)).getId();
+
+        token = jwtUtil.generateToken(owner.getUsername());
+    }
+
+    @Test
+    void importsEverySectionInOrder() throws Exception {
+        importSections("[{\"title\":\"One\",\"content\":\"a\"},{\"title\":\"Two\",\"content\":\"b\"}]")
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.count").value(2));
+
+        assertThat(sectionRepository.findByEbookIdOrderBySectionOrderAsc(ebookId))
+                .extracting("title").containsExactly("One", "Two");
+        // Indexed once the import committed
+        assertThat(sectionSearchIndex.search(SectionSearchIndex.parseQuery("two"), ebookId, 0, 10).hits())
+                .hasSize(1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            // Truncated after a complete element
+            "[{\"title\":\"One\",\"content\":\"a\"},",
+            "[{\"title\":\"One\",\"content\":\"a\"}",
+            // A non-object element
+            "[{\"title\":\"One\",\"content\":\"a\"}, 42]",
+            // Trailing content after the array
+            "[{\"title\":\"One\",\"content\":\"a\"}] []",
+            // Missing or blank title
+            "[{\"title\":\"One\",\"content\":\"a\"},{\"content\":\"b\"}]",
+            "[{\"title\":\"One\",\"content\":\"a\"},{\"title\":\" \",\"content\":\"b\"}]",
+            "{\"title\":\"One\"}"
+    })
+    void rejectsIncompleteOrInvalidBodiesWithoutImportingAnything(String body) throws Exception {
+        importSections(body).andExpect(status().isBadRequest());
+
+        assertThat(sectionRepository.findByEbookIdOrderBySectionOrderAsc(ebookId)).isEmpty();
+        assertThat(sectionSearchIndex.search(SectionSearchIndex.parseQuery("one"), ebookId, 0, 10).hits())
+                .isEmpty();
+    }
+
+    @Test
+    void sectionsTheDatabaseRejectsAreABadRequest() throws Exception {
+        String longTitle = "t".repeat(300);
+        importSections("[{\"title\":\"One\",\"content\":\"a\"},{\"title\":\"" + longTitle + "\",\"content\":\"b\"}]")
+                .andExpect(status().isBadRequest());
+
+        assertThat(sectionRepository.findByEbookIdOrderBySectionOrderAsc(ebookId)).isEmpty();
+    }
+
+    @Test
+    void contentOverTheLengthLimitIsRejected() throws Exception {
+        String longContent = "c".repeat(Section.MAX_CONTENT_LENGTH + 1);
+        importSections("[{\"title\":\"One\",\"content\":\"a\"},{\"title\":\"Two\",\"content\":\"" + longContent + "\"}]")
+                .andExpect(status().isBadRequest());
+        assertThat(sectionRepository.findByEbookIdOrderBySectionOrderAsc(ebookId)).isEmpty();
+
+        String section = "{\"title\":\"Single\",\"content\":\"%s\",\"ebook\":null}";
+        mockMvc.perform(post("/api/sections/ebook/{ebookId}/bulk", ebookId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + section.formatted("short") + "]"))
+                .andExpect(status().isCreated());
+        Long sectionId = sectionRepository.findByEbookIdOrderBySectionOrderAsc(ebookId).get(0).getId();
+        mockMvc.perform(put("/api/sections/{id}", sectionId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(section.formatted(longContent)))
+                .andExpect(status().isBadRequest());
+        assertThat(sectionRepository.findById(sectionId)).get().extracting(Section::getContent).isEqualTo("short");
+    }
+
+    @Test
+    void unknownEbookIsNotFound() throws Exception {
+        mockMvc.perform(post("/api/sections/ebook/{ebookId}/bulk", Long.MAX_VALUE)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isNotFound());
+    }
+
+    private ResultActions importSections(String body) throws Exception {
+        return mockMvc.perform(post("/api/sections/ebook/{ebookId}/bulk", ebookId)
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+    }
+}
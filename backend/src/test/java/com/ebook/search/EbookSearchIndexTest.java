@@ -0,0 +1,104 @@
+package com.ebook.search;
+
+import com.ebook.model.Ebook;
+import com.ebook.repository.EbookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EbookSearchIndexTest {
+
+    private EbookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new EbookSearchIndex();
+        index.index(ebook(1L, "The Dragon Queen", "Ann Smith", "Fantasy", "A queen rides a dragon."));
+        index.index(ebook(2L, "Silver History", "Bo Chen", "History", "Mines, coins and a dragon legend."));
+        index.index(ebook(3L, "Garden Notes", "Cy Drake", "Home", "Growing tomatoes in small gardens."));
+    }
+
+    @Test
+    void ranksTitleMatchesAboveDescriptionMatches() {
+        EbookSearchIndex.Result result = index.search("dragon", 0, 10);
+
+        assertThat(result.ids()).containsExactly(1L, 2L);
+        assertThat(result.total()).isEqualTo(2);
+    }
+
+    @Test
+    void lastTokenMatchesAsPrefix() {
+        assertThat(index.search("hist", 0, 10).ids()).containsExactly(2L);
+        assertThat(index.search("hist garden", 0, 10).ids()).containsExactly(3L);
+    }
+
+    @Test
+    void reindexReplacesTheOldDocument() {
+        index.index(ebook(2L, "Copper Ledger", "Bo Chen", "History", "No legends here."));
+
+        assertThat(index.search("silver", 0, 10).ids()).isEmpty();
+        assertThat(index.search("copper", 0, 10).ids()).containsExactly(2L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void removedEbooksAreNotFound() {
+        index.remove(1L);
+
+        assertThat(index.search("queen", 0, 10).ids()).isEmpty();
+    }
+
+    @Test
+    void pagesThroughRankedHits() {
+        assertThat(index.search("dragon", 1, 1).ids()).containsExactly(2L);
+        assertThat(index.search("dragon", 2, 10).ids()).isEmpty();
+    }
+
+    @Test
+    void offsetPastIntRangeReturnsAnEmptyPage() {
+        EbookSearchIndex.Result result = index.search("dragon", (long) Integer.MAX_VALUE * 50, 50);
+
+        assertThat(result.ids()).isEmpty();
+        assertThat(result.total()).isEqualTo(2);
+        assertThat(index.search("dragon", 1, Integer.MAX_VALUE).ids()).containsExactly(2L);
+    }
+
+    @Test
+    void rebuildSwapsInTheReloadedIndexAndKeepsChangesMadeMeanwhile() {
+        EbookRepository repository = mock(EbookRepository.class);
+        ReflectionTestUtils.setField(index, "ebookRepository", repository);
+        when(repository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Limit.class))).thenAnswer(invocation -> {
+            // Searches keep answering from the old index while the rebuild loads
+            assertThat(index.search("garden", 0, 10).ids()).containsExactly(3L);
+            index.index(ebook(4L, "Harbor Tides", "Di Vale", "Travel", "Boats."));
+            return List.of(ebook(3L, "Garden Notes", "Cy Drake", "Home", "Growing tomatoes."),
+                    ebook(5L, "Orchard Year", "Ed Moss", "Home", "Apples."));
+        });
+
+        index.rebuild();
+
+        assertThat(index.search("dragon", 0, 10).ids()).isEmpty();
+        assertThat(index.search("orchard", 0, 10).ids()).containsExactly(5L);
+        assertThat(index.search("harbor", 0, 10).ids()).containsExactly(4L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    private static Ebook ebook(Long id, String title, String author, String category, String description) {
+        Ebook ebook = new Ebook();
+        ebook.setId(id);
+        ebook.setTitle(title);
+        ebook.setAuthor(author);
+        ebook.setCategory(category);
+        ebook.setDescription(description);
+        return ebook;
+    }
+}
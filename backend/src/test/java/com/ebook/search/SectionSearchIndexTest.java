@@ -0,0 +1,132 @@
+package com.ebook.search;
+
+import com.ebook.model.Ebook;
+import com.ebook.model.Section;
+import com.ebook.repository.SectionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SectionSearchIndexTest {
+
+    private SectionSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SectionSearchIndex();
+        index.index(section(10L, 1L, "Chapter One", "The silver dragon slept under the mountain."));
+        index.index(section(11L, 1L, "Chapter Two", "A dragon of silver woke. Silver, silver everywhere."));
+        index.index(section(20L, 2L, "Silver", "Dragon tales for children."));
+    }
+
+    @Test
+    void parsesQuotedTextAsPhraseClauses() {
+        assertThat(SectionSearchIndex.parseQuery("\"silver dragon\" mountain"))
+                .containsExactly(List.of("silver", "dragon"), List.of("mountain"));
+        assertThat(SectionSearchIndex.parseQuery(null)).isEmpty();
+    }
+
+    @Test
+    void phraseMatchesOnlyAdjacentTokensInOrder() {
+        assertThat(sectionIds(search("\"silver dragon\"", null))).containsExactly(10L);
+    }
+
+    @Test
+    void phraseDoesNotMatchAcrossTitleAndContent() {
+        // Section 20 has "Silver" as its title and "Dragon" as the first content word
+        assertThat(sectionIds(search("\"silver dragon\"", 2L))).isEmpty();
+    }
+
+    @Test
+    void everyClauseMustMatchAndFrequencyRaisesTheScore() {
+        SectionSearchIndex.Result result = search("silver dragon", null);
+
+        assertThat(sectionIds(result)).containsExactly(11L, 10L, 20L);
+        assertThat(result.total()).isEqualTo(3);
+        assertThat(sectionIds(search("silver mountain", null))).containsExactly(10L);
+    }
+
+    @Test
+    void filtersByEbook() {
+        assertThat(sectionIds(search("dragon", 2L))).containsExactly(20L);
+    }
+
+    @Test
+    void reindexAndRemoveDropOldPostings() {
+        index.index(section(10L, 1L, "Chapter One", "A quiet valley."));
+        index.removeEbook(2L);
+
+        assertThat(sectionIds(search("dragon", null))).containsExactly(11L);
+        assertThat(sectionIds(search("valley", null))).containsExactly(10L);
+    }
+
+    @Test
+    void compactionKeepsLiveDocumentsSearchable() {
+        for (long id = 100; id < 1200; id++) {
+            index.index(section(id, 3L, "Filler", "padding text " + id));
+        }
+        // Tombstones now outnumber live docs, which triggers compaction
+        for (long id = 100; id < 1200; id++) {
+            index.remove(id);
+        }
+
+        assertThat(sectionIds(search("\"silver dragon\"", null))).containsExactly(10L);
+        assertThat(sectionIds(search("padding", null))).isEmpty();
+    }
+
+    @Test
+    void offsetPastIntRangeReturnsAnEmptyPage() {
+        SectionSearchIndex.Result result = index.search(SectionSearchIndex.parseQuery("dragon"), null,
+                (long) Integer.MAX_VALUE * 50, 50);
+
+        assertThat(result.hits()).isEmpty();
+        assertThat(result.total()).isEqualTo(3);
+    }
+
+    @Test
+    void rebuildSwapsInTheReloadedIndexAndKeepsChangesMadeMeanwhile() {
+        SectionRepository repository = mock(SectionRepository.class);
+        ReflectionTestUtils.setField(index, "sectionRepository", repository);
+        when(repository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Limit.class))).thenAnswer(invocation -> {
+            // Searches keep answering from the old index while the rebuild loads
+            assertThat(sectionIds(search("mountain", null))).containsExactly(10L);
+            index.index(section(30L, 3L, "Harbor", "Boats and tides."));
+            index.removeEbook(2L);
+            return List.of(section(10L, 1L, "Chapter One", "The silver dragon slept under the mountain."),
+                    section(20L, 2L, "Silver", "Dragon tales for children."));
+        });
+
+        index.rebuild();
+
+        assertThat(sectionIds(search("dragon", null))).containsExactly(10L);
+        assertThat(sectionIds(search("harbor", null))).containsExactly(30L);
+    }
+
+    private SectionSearchIndex.Result search(String query, Long ebookId) {
+        return index.search(SectionSearchIndex.parseQuery(query), ebookId, 0, 10);
+    }
+
+    private static List<Long> sectionIds(SectionSearchIndex.Result result) {
+        return result.hits().stream().map(SectionSearchIndex.Hit::sectionId).toList();
+    }
+
+    private static Section section(Long id, Long ebookId, String title, String content) {
+        Ebook ebook = new Ebook();
+        ebook.setId(ebookId);
+        Section section = new Section();
+        section.setId(id);
+        section.setEbook(ebook);
+        section.setTitle(title);
+        section.setContent(content);
+        return section;
+    }
+}
@@ -0,0 +1,143 @@
+package com.ebook.service;
+
+import com.ebook.model.FileBlob;
+import com.ebook.repository.FileBlobRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BlobStorageServiceTest {
+
+    @Autowired
+    private BlobStorageService blobStorageService;
+
+    @SpyBean
+    private FileBlobRepository fileBlobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void identicalContentIsStoredOnceAndReferenceCounted() throws IOException {
+        byte[] content = uniqueContent();
+
+        String first = blobStorageService.store(new ByteArrayInputStream(content));
+        String second = blobStorageService.store(new ByteArrayInputStream(content));
+
+        assertThat(second).isEqualTo(first);
+        assertThat(BlobStorageService.contentHash(first)).hasSize(64);
+        assertThat(Files.readAllBytes(blobStorageService.resolve(first))).isEqualTo(content);
+        assertThat(refCount(first)).isEqualTo(2);
+
+        blobStorageService.release(first);
+        assertThat(refCount(first)).isEqualTo(1);
+        assertThat(blobStorageService.resolve(first)).exists();
+
+        blobStorageService.release(first);
+        assertThat(fileBlobRepository.findById(BlobStorageService.contentHash(first))).isEmpty();
+        assertThat(blobStorageService.resolve(first)).doesNotExist();
+    }
+
+    @Test
+    void distinctContentGetsDistinctBlobs() throws IOException {
+        String first = blobStorageService.store(new ByteArrayInputStream(uniqueContent()));
+        String second = blobStorageService.store(new ByteArrayInputStream(uniqueContent()));
+
+        assertThat(second).isNotEqualTo(first);
+        assertThat(refCount(first)).isEqualTo(1);
+        assertThat(refCount(second)).isEqualTo(1);
+
+        blobStorageService.release(first);
+        assertThat(blobStorageService.resolve(first)).doesNotExist();
+        assertThat(blobStorageService.resolve(second)).exists();
+        blobStorageService.release(second);
+    }
+
+    @Test
+    void storeFileConsumesTheSource() throws IOException {
+        Path source = blobStorageService.createTempFile("test-");
+        Files.write(source, uniqueContent());
+
+        String filePath = blobStorageService.storeFile(source);
+
+        assertThat(source).doesNotExist();
+        assertThat(refCount(filePath)).isEqualTo(1);
+        blobStorageService.release(filePath);
+    }
+
+    @Test
+    void legacyPathsAreDeletedDirectly() throws IOException {
+        String filePath = UUID.randomUUID() + ".pdf";
+        Files.write(blobStorageService.resolve(filePath), uniqueContent());
+
+        blobStorageService.release(filePath);
+
+        assertThat(blobStorageService.resolve(filePath)).doesNotExist();
+    }
+
+    @Test
+    void fileOutlivesAReleaseThatRollsBack() throws IOException {
+        String filePath = blobStorageService.store(new ByteArrayInputStream(uniqueContent()));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            blobStorageService.release(filePath);
+            status.setRollbackOnly();
+        });
+
+        assertThat(refCount(filePath)).isEqualTo(1);
+        assertThat(blobStorageService.resolve(filePath)).exists();
+        blobStorageService.release(filePath);
+        assertThat(blobStorageService.resolve(filePath)).doesNotExist();
+    }
+
+    @Test
+    void failedInsertRemovesTheMovedFile() {
+        byte[] content = uniqueContent();
+        doThrow(new DataAccessResourceFailureException("connection lost"))
+                .when(fileBlobRepository).saveAndFlush(any(FileBlob.class));
+
+        assertThatThrownBy(() -> blobStorageService.store(new ByteArrayInputStream(content)))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+
+        String hash = sha256(content);
+        assertThat(blobStorageService.resolve(hash.substring(0, 2) + "/" + hash + ".pdf")).doesNotExist();
+        assertThat(fileBlobRepository.findById(hash)).isEmpty();
+    }
+
+    private int refCount(String filePath) {
+        return fileBlobRepository.findById(BlobStorageService.contentHash(filePath)).orElseThrow().getRefCount();
+    }
+
+    private static byte[] uniqueContent() {
+        return ("%PDF-1.4 " + UUID.randomUUID()).getBytes();
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.ebook.service;
+
+import com.ebook.dto.CursorPage;
+import com.ebook.dto.EbookSummary;
+import com.ebook.model.Ebook;
+import com.ebook.model.Role;
+import com.ebook.model.User;
+import com.ebook.repository.EbookRepository;
+import com.ebook.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class KeysetPaginationTest {
+
+    @Autowired
+    private EbookService ebookService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EbookRepository ebookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User owner;
+    private final List<Long> ebookIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        owner = new User();
+        owner.setUsername("keyset-owner");
+        owner.setPassword("x");
+        owner.setEmail("keyset-owner@example.com");
+        owner.setRole(Role.USER);
+        owner = userRepository.save(owner);
+
+        for (int i = 0; i < 7; i++) {
+            Ebook ebook = new Ebook();
+            ebook.setTitle("Keyset " + i);
+            ebook.setAuthor("Author");
+            ebook.setCategory(i % 2 == 0 ? "keyset-even" : "keyset-odd");
+            ebook.setUser(owner);
+            ebookIds.add(ebookRepository.save(ebook).getId());
+        }
+    }
+
+    @Test
+    void walksEveryRowOnceInIdOrder() {
+        List<Integer> pageSizes = new ArrayList<>();
+        List<Long> seen = collect(cursor -> ebookService.getEbooksByUserId(owner.getId(), cursor, 3), pageSizes);
+
+        assertThat(seen).containsExactlyElementsOf(ebookIds);
+        assertThat(pageSizes).containsExactly(3, 3, 1);
+    }
+
+    @Test
+    void categoryPagesOnlyContainThatCategory() {
+        List<Long> seen = collect(cursor -> ebookService.getEbooksByCategory("keyset-odd", cursor, 2), new ArrayList<>());
+
+        assertThat(seen).containsExactly(ebookIds.get(1), ebookIds.get(3), ebookIds.get(5));
+    }
+
+    @Test
+    void rowsInsertedDuringTheWalkAppearOnALaterPage() {
+        CursorPage<EbookSummary> first = ebookService.getEbooksByUserId(owner.getId(), null, 3);
+
+        Ebook late = new Ebook();
+        late.setTitle("Late");
+        late.setAuthor("Author");
+        late.setCategory("keyset-even");
+        late.setUser(owner);
+        Long lateId = ebookRepository.save(late).getId();
+
+        List<Long> rest = collect(cursor -> ebookService.getEbooksByUserId(owner.getId(),
+                cursor == null ? first.getNextCursor() : cursor, 3), new ArrayList<>());
+        assertThat(rest).containsExactly(ebookIds.get(3), ebookIds.get(4), ebookIds.get(5), ebookIds.get(6), lateId);
+    }
+
+    @Test
+    void userListingUsesTheSameCursors() {
+        CursorPage<User> page = userService.getAllUsers(null, 1);
+
+        assertThat(page.getItems()).hasSize(1);
+        assertThat(page.getNextCursor()).isNotNull();
+        assertThat(userService.getAllUsers(page.getNextCursor(), 100).getItems())
+                .extracting(User::getId)
+                .allMatch(id -> id > page.getItems().get(0).getId());
+    }
+
+    @Test
+    void capsThePageSize() {
+        assertThat(CursorPage.pageSize(10_000)).isEqualTo(CursorPage.MAX_PAGE_SIZE);
+        assertThat(CursorPage.pageSize(0)).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertThatThrownBy(() -> ebookService.getAllEbooks("not a cursor!", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ebookService.getAllEbooks("bm90LWEtbnVtYmVy", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<Long> collect(Function<String, CursorPage<EbookSummary>> fetch, List<Integer> pageSizes) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<EbookSummary> page = fetch.apply(cursor);
+            pageSizes.add(page.getItems().size());
+            page.getItems().forEach(ebook -> ids.add(ebook.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+}
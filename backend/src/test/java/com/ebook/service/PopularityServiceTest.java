@@ -0,0 +1,147 @@
+package com.ebook.service;
+
+import com.ebook.TestFixtures;
+import com.ebook.dto.TrendingEbook;
+import com.ebook.model.EbookStats;
+import com.ebook.repository.EbookRepository;
+import com.ebook.repository.EbookStatsRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PopularityServiceTest {
+
+    @Autowired
+    private PopularityService popularityService;
+
+    @Autowired
+    private EbookService ebookService;
+
+    @Autowired
+    private EbookRepository ebookRepository;
+
+    @Autowired
+    private EbookStatsRepository ebookStatsRepository;
+
+    @Test
+    void flushAddsCountsToTheTotalsAndRanksTrending() {
+        Long quiet = ebook("Quiet");
+        Long popular = ebook("Popular");
+
+        popularityService.viewed(quiet);
+        for (int i = 0; i < 3; i++) {
+            popularityService.viewed(popular);
+        }
+        popularityService.downloaded(popular);
+        popularityService.flush();
+        popularityService.viewed(popular);
+        popularityService.flush();
+
+        assertThat(stats(popular).getViews()).isEqualTo(4);
+        assertThat(stats(popular).getDownloads()).isEqualTo(1);
+        assertThat(stats(quiet).getViews()).isEqualTo(1);
+        assertThat(popularityService.getTrending(100)).extracting(TrendingEbook::getId)
+                .containsSubsequence(popular, quiet);
+    }
+
+    @Test
+    void incrementsRacingTheFlushAreNotLost() throws Exception {
+        Long id = ebook("Contended");
+        int threads = 4;
+        int perThread = 20_000;
+
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        popularityService.viewed(id);
+                    }
+                }));
+            }
+            Thread flusher = new Thread(() -> {
+                while (!done.get()) {
+                    popularityService.flush();
+                }
+            });
+            flusher.start();
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            done.set(true);
+            flusher.join();
+        } finally {
+            executor.shutdown();
+        }
+        popularityService.flush();
+
+        assertThat(stats(id).getViews()).isEqualTo((long) threads * perThread);
+    }
+
+    @Test
+    void idleCountersAreDroppedButLaterEventsStillCount() {
+        Long id = ebook("Idle");
+        popularityService.viewed(id);
+        popularityService.flush();
+        // Two empty flushes: the first marks the entry idle, the second removes it
+        popularityService.flush();
+        popularityService.flush();
+
+        popularityService.viewed(id);
+        popularityService.flush();
+
+        assertThat(stats(id).getViews()).isEqualTo(2);
+    }
+
+    @Test
+    void forgetDropsTotalsTrendingAndPendingCounts() {
+        Long id = ebook("Deleted");
+        popularityService.viewed(id);
+        popularityService.flush();
+        popularityService.viewed(id);
+
+        popularityService.forget(id);
+        popularityService.flush();
+
+        assertThat(ebookStatsRepository.findById(id)).isEmpty();
+        assertThat(popularityService.getTrending(100)).extracting(TrendingEbook::getId).doesNotContain(id);
+    }
+
+    @Test
+    void eventsRacingTheDeleteDoNotRecreateTheStats() {
+        Long id = ebook("Deleted while read");
+        popularityService.viewed(id);
+        popularityService.flush();
+
+        ebookService.deleteEbook(id);
+        // Counted by a request that looked the ebook up before the delete
+        popularityService.viewed(id);
+        popularityService.downloaded(id);
+        popularityService.flush();
+
+        assertThat(ebookStatsRepository.findById(id)).isEmpty();
+        assertThat(popularityService.getTrending(100)).extracting(TrendingEbook::getId).doesNotContain(id);
+    }
+
+    private Long ebook(String title) {
+        return ebookRepository.save(TestFixtures.ebook(title, "popularity", null, 0)).getId();
+    }
+
+    private EbookStats stats(Long id) {
+        return ebookStatsRepository.findById(id).orElseThrow();
+    }
+}
@@ -0,0 +1,199 @@
+package com.ebook.service;
+
+import com.ebook.TestFixtures;
+import com.ebook.dto.ReadingPosition;
+import com.ebook.model.Ebook;
+import com.ebook.model.Role;
+import com.ebook.repository.EbookRepository;
+import com.ebook.repository.ReadingProgressRepository;
+import com.ebook.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = "app.reading-progress.max-pending-per-user=2")
+@ActiveProfiles("test")
+class ReadingProgressServiceTest {
+
+    @Autowired
+    private ReadingProgressService readingProgressService;
+
+    @Autowired
+    private ReadingProgressRepository readingProgressRepository;
+
+    @Autowired
+    private EbookService ebookService;
+
+    @Autowired
+    private EbookRepository ebookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = TestFixtures.user(userRepository, "reader", Role.USER).getId();
+    }
+
+    @Test
+    void reportsForOneEbookCoalesceIntoTheLatestPosition() {
+        Ebook ebook = ebook(2);
+        Long first = ebook.getSections().get(0).getId();
+        Long second = ebook.getSections().get(1).getId();
+
+        readingProgressService.report(userId, ebook.getId(), first, 10);
+        readingProgressService.report(userId, ebook.getId(), first, 20);
+        readingProgressService.report(userId, ebook.getId(), second, 5);
+
+        // Buffered: visible to reads, not yet in the database
+        assertThat(readingProgressService.getPosition(userId, ebook.getId()))
+                .get().extracting(ReadingPosition::getSectionId, ReadingPosition::getOffset)
+                .containsExactly(second, 5);
+        assertThat(readingProgressRepository.findPosition(userId, ebook.getId())).isEmpty();
+
+        readingProgressService.flush();
+
+        assertThat(readingProgressRepository.findPosition(userId, ebook.getId()))
+                .get().extracting(ReadingPosition::getSectionId, ReadingPosition::getOffset)
+                .containsExactly(second, 5);
+        assertThat(readingProgressService.getRecentPositions(userId, 10)).hasSize(1);
+    }
+
+    @Test
+    void reportsPastThePerUserBoundAreWrittenThrough() {
+        Ebook first = ebook(1);
+        Ebook second = ebook(1);
+        Ebook third = ebook(1);
+
+        readingProgressService.report(userId, first.getId(), null, 1);
+        readingProgressService.report(userId, second.getId(), null, 2);
+        readingProgressService.report(userId, third.getId(), null, 3);
+        // Already buffered, so still coalesced
+        readingProgressService.report(userId, first.getId(), null, 4);
+
+        assertThat(readingProgressRepository.findPosition(userId, first.getId())).isEmpty();
+        assertThat(readingProgressRepository.findPosition(userId, second.getId())).isEmpty();
+        assertThat(readingProgressRepository.findPosition(userId, third.getId()))
+                .get().extracting(ReadingPosition::getOffset).isEqualTo(3);
+
+        // Flushing frees the user's slots again
+        readingProgressService.flush();
+        Ebook fourth = ebook(1);
+        readingProgressService.report(userId, fourth.getId(), null, 5);
+        assertThat(readingProgressRepository.findPosition(userId, fourth.getId())).isEmpty();
+        assertThat(readingProgressRepository.findPosition(userId, first.getId()))
+                .get().extracting(ReadingPosition::getOffset).isEqualTo(4);
+        readingProgressService.flush();
+    }
+
+    @Test
+    void concurrentReportsCannotOverfillTheUsersSlots() throws Exception {
+        int readers = 16;
+        for (int round = 0; round < 20; round++) {
+            List<Long> ebookIds = new ArrayList<>();
+            for (int i = 0; i < readers; i++) {
+                ebookIds.add(ebook(1).getId());
+            }
+            // Cached up front so the reports reach the slot check together
+            ebookIds.forEach(ebookService::getEbookWithSections);
+            CyclicBarrier start = new CyclicBarrier(readers);
+            ExecutorService executor = Executors.newFixedThreadPool(readers);
+            try {
+                List<Future<?>> reports = new ArrayList<>();
+                for (Long ebookId : ebookIds) {
+                    reports.add(executor.submit(() -> {
+                        start.await();
+                        return readingProgressService.report(userId, ebookId, null, 1);
+                    }));
+                }
+                for (Future<?> report : reports) {
+                    report.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+
+            // Everything past the two slots was written through
+            long buffered = ebookIds.stream()
+                    .filter(ebookId -> readingProgressRepository.findPosition(userId, ebookId).isEmpty())
+                    .count();
+            assertThat(buffered).isLessThanOrEqualTo(2);
+            readingProgressService.flush();
+        }
+    }
+
+    @Test
+    void positionsWhoseFlushFailedAreOnlyRequeuedWithinTheLimits() {
+        Ebook first = ebook(1);
+        Ebook second = ebook(1);
+        Ebook third = ebook(1);
+        readingProgressService.report(userId, first.getId(), null, 1);
+        readingProgressService.report(userId, second.getId(), null, 2);
+
+        JdbcTemplate jdbcTemplate = (JdbcTemplate) ReflectionTestUtils.getField(readingProgressService, "jdbcTemplate");
+        JdbcTemplate failing = mock(JdbcTemplate.class);
+        when(failing.batchUpdate(anyString(), anyList())).thenThrow(new DataAccessResourceFailureException("down"));
+        ReflectionTestUtils.setField(readingProgressService, "jdbcTemplate", failing);
+        try {
+            // Both slots are taken, so the failed write-through is not buffered instead
+            readingProgressService.report(userId, third.getId(), null, 3);
+            assertThat(readingProgressService.getPosition(userId, third.getId())).isEmpty();
+
+            // A failed flush takes its own positions back
+            readingProgressService.flush();
+        } finally {
+            ReflectionTestUtils.setField(readingProgressService, "jdbcTemplate", jdbcTemplate);
+        }
+        readingProgressService.flush();
+
+        assertThat(readingProgressRepository.findPosition(userId, first.getId())).isPresent();
+        assertThat(readingProgressRepository.findPosition(userId, second.getId())).isPresent();
+        assertThat(readingProgressRepository.findPosition(userId, third.getId())).isEmpty();
+    }
+
+    @Test
+    void unknownEbookIsRejected() {
+        assertThatThrownBy(() -> readingProgressService.report(userId, Long.MAX_VALUE, null, 0))
+                .isInstanceOf(NoSuchElementException.class)
+                .hasMessageContaining("Ebook not found");
+    }
+
+    @Test
+    void sectionOfAnotherEbookIsRejected() {
+        Ebook ebook = ebook(1);
+        Ebook other = ebook(1);
+        Long foreignSection = other.getSections().get(0).getId();
+
+        assertThatThrownBy(() -> readingProgressService.report(userId, ebook.getId(), foreignSection, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> readingProgressService.report(userId, ebook.getId(), null, -1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(readingProgressService.getPosition(userId, ebook.getId())).isEmpty();
+    }
+
+    private Ebook ebook(int sections) {
+        return ebookRepository.save(TestFixtures.ebook("Progress", "progress", null, sections));
+    }
+}
@@ -0,0 +1,79 @@
+package com.ebook.service;
+
+import com.ebook.model.Ebook;
+import com.ebook.model.Section;
+import com.ebook.repository.EbookRepository;
+import com.ebook.repository.SectionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Appending after a section whose order key sits near the top of the int range
+ * re-spaces the ebook's sections instead of overflowing.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SectionOrderTest {
+
+    @Autowired
+    private SectionService sectionService;
+
+    @Autowired
+    private EbookRepository ebookRepository;
+
+    @Autowired
+    private SectionRepository sectionRepository;
+
+    private Ebook ebook;
+
+    @BeforeEach
+    void setUp() {
+        ebook = new Ebook();
+        ebook.setTitle("Ordering");
+        ebook.setAuthor("Author");
+        ebook.setCategory("ordering");
+        Section last = new Section();
+        last.setTitle("Last");
+        last.setContent("text");
+        last.setSectionOrder(Integer.MAX_VALUE - 10);
+        last.setEbook(ebook);
+        ebook.getSections().add(last);
+        ebook = ebookRepository.save(ebook);
+    }
+
+    @Test
+    void createSectionRespacesWhenTheNextKeyWouldOverflow() {
+        Section appended = new Section();
+        appended.setTitle("Appended");
+        appended.setContent("text");
+        appended.setEbook(ebook);
+
+        sectionService.createSection(appended);
+
+        assertThat(sectionRepository.findByEbookIdOrderBySectionOrderAsc(ebook.getId()))
+                .extracting(Section::getTitle, Section::getSectionOrder)
+                .containsExactly(
+                        tuple("Last", SectionService.ORDER_GAP),
+                        tuple("Appended", 2 * SectionService.ORDER_GAP));
+    }
+
+    @Test
+    void importRespacesWhenTheNextKeyWouldOverflow() throws IOException {
+        String json = "[{\"title\":\"One\",\"content\":\"a\"},{\"title\":\"Two\",\"content\":\"b\"}]";
+
+        sectionService.importSections(ebook.getId(), new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(sectionRepository.findByEbookIdOrderBySectionOrderAsc(ebook.getId()))
+                .extracting(Section::getTitle).containsExactly("Last", "One", "Two");
+    }
+}
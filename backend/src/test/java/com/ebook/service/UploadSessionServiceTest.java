@@ -0,0 +1,213 @@
+package com.ebook.service;
+
+import com.ebook.dto.UploadStatus;
+import com.ebook.model.Ebook;
+import com.ebook.model.Role;
+import com.ebook.model.User;
+import com.ebook.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "app.uploads.max-sessions-per-user=2",
+        "app.uploads.max-reserved=1KB"
+})
+@ActiveProfiles("test")
+class UploadSessionServiceTest {
+
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    @Autowired
+    private BlobStorageService blobStorageService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<Map.Entry<String, Long>> opened = new ArrayList<>();
+
+    @AfterEach
+    void abortOpenSessions() {
+        for (Map.Entry<String, Long> session : opened) {
+            try {
+                uploadSessionService.abort(session.getKey(), session.getValue());
+            } catch (IOException | RuntimeException e) {
+                // Already committed or aborted by the test
+            }
+        }
+    }
+
+    @Test
+    void chunksArriveOutOfOrderAndMerge() throws IOException {
+        byte[] content = pdf(100);
+        UploadStatus status = open(1L, content.length);
+
+        status = uploadSessionService.writeChunk(status.getUploadId(), 1L, 60, slice(content, 60, 100));
+        assertThat(ranges(status)).containsExactly("60-100");
+
+        status = uploadSessionService.writeChunk(status.getUploadId(), 1L, 0, slice(content, 0, 30));
+        assertThat(ranges(status)).containsExactly("0-30", "60-100");
+        assertThat(status.getReceivedBytes()).isEqualTo(70);
+        assertThat(status.isComplete()).isFalse();
+
+        status = uploadSessionService.writeChunk(status.getUploadId(), 1L, 20, slice(content, 20, 70));
+        assertThat(ranges(status)).containsExactly("0-100");
+        assertThat(status.isComplete()).isTrue();
+    }
+
+    @Test
+    void droppedChunkKeepsWhatArrivedSoTheClientCanResume() throws IOException {
+        byte[] content = pdf(100);
+        UploadStatus status = open(2L, content.length);
+
+        InputStream dropped = new ByteArrayInputStream(content, 0, 40) {
+            @Override
+            public synchronized int read(byte[] buffer, int offset, int length) {
+                int read = super.read(buffer, offset, length);
+                if (read == -1) {
+                    throw new IllegalStateException("connection reset");
+                }
+                return read;
+            }
+        };
+        assertThatThrownBy(() -> uploadSessionService.writeChunk(status.getUploadId(), 2L, 0, dropped))
+                .hasMessage("connection reset");
+
+        UploadStatus resumed = uploadSessionService.getStatus(status.getUploadId(), 2L);
+        assertThat(ranges(resumed)).containsExactly("0-40");
+
+        resumed = uploadSessionService.writeChunk(status.getUploadId(), 2L, resumed.getReceivedBytes(),
+                slice(content, 40, 100));
+        assertThat(resumed.isComplete()).isTrue();
+    }
+
+    @Test
+    void commitNeedsEveryByteAndStoresTheAssembledFile() throws IOException {
+        User owner = new User();
+        owner.setUsername("upload-owner");
+        owner.setPassword("x");
+        owner.setEmail("upload-owner@example.com");
+        owner.setRole(Role.USER);
+        owner = userRepository.save(owner);
+
+        byte[] content = pdf(100);
+        UploadStatus status = open(owner.getId(), content.length);
+        uploadSessionService.writeChunk(status.getUploadId(), owner.getId(), 0, slice(content, 0, 50));
+
+        Ebook ebook = new Ebook();
+        ebook.setTitle("Resumed upload");
+        ebook.setAuthor("Author");
+        ebook.setCategory("uploads");
+        ebook.setUser(owner);
+        Long ownerId = owner.getId();
+        assertThatThrownBy(() -> uploadSessionService.commit(status.getUploadId(), ownerId, ebook))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("50 of 100");
+
+        uploadSessionService.writeChunk(status.getUploadId(), ownerId, 50, slice(content, 50, 100));
+        Ebook saved = uploadSessionService.commit(status.getUploadId(), ownerId, ebook);
+
+        assertThat(Files.readAllBytes(blobStorageService.resolve(saved.getFilePath()))).isEqualTo(content);
+        assertThatThrownBy(() -> uploadSessionService.getStatus(status.getUploadId(), ownerId))
+                .hasMessageContaining("not found");
+    }
+
+    @Test
+    void aFailedCommitKeepsTheUploadSoItCanBeRetried() throws IOException {
+        User owner = new User();
+        owner.setUsername("retry-owner");
+        owner.setPassword("x");
+        owner.setEmail("retry-owner@example.com");
+        owner.setRole(Role.USER);
+        owner = userRepository.save(owner);
+        Long ownerId = owner.getId();
+
+        byte[] content = pdf(100);
+        UploadStatus status = open(ownerId, content.length);
+        uploadSessionService.writeChunk(status.getUploadId(), ownerId, 0, slice(content, 0, 100));
+
+        Ebook ebook = new Ebook();
+        ebook.setAuthor("Author");
+        ebook.setCategory("uploads");
+        ebook.setUser(owner);
+        // No title, so the insert fails
+        assertThatThrownBy(() -> uploadSessionService.commit(status.getUploadId(), ownerId, ebook))
+                .isInstanceOf(RuntimeException.class);
+        assertThat(uploadSessionService.getStatus(status.getUploadId(), ownerId).isComplete()).isTrue();
+
+        ebook.setTitle("Retried upload");
+        Ebook saved = uploadSessionService.commit(status.getUploadId(), ownerId, ebook);
+        assertThat(Files.readAllBytes(blobStorageService.resolve(saved.getFilePath()))).isEqualTo(content);
+    }
+
+    @Test
+    void sessionsAreOnlyVisibleToTheirOwner() throws IOException {
+        UploadStatus status = open(3L, 10);
+
+        assertThatThrownBy(() -> uploadSessionService.getStatus(status.getUploadId(), 4L))
+                .hasMessageContaining("not found");
+    }
+
+    @Test
+    void openSessionsPerUserAreCapped() throws IOException {
+        open(5L, 10);
+        UploadStatus second = open(5L, 10);
+
+        assertThatThrownBy(() -> uploadSessionService.createSession(5L, 10))
+                .isInstanceOf(IllegalStateException.class);
+        // Other users are unaffected, and aborting frees a slot
+        open(6L, 10);
+        uploadSessionService.abort(second.getUploadId(), 5L);
+        open(5L, 10);
+    }
+
+    @Test
+    void reservedBytesAreCappedAcrossUsers() throws IOException {
+        UploadStatus first = open(7L, 600);
+
+        assertThatThrownBy(() -> uploadSessionService.createSession(8L, 600))
+                .isInstanceOf(IllegalStateException.class);
+        // The refused session does not count against the user
+        open(8L, 400);
+        uploadSessionService.abort(first.getUploadId(), 7L);
+        open(8L, 600);
+    }
+
+    private UploadStatus open(Long userId, long size) throws IOException {
+        UploadStatus status = uploadSessionService.createSession(userId, size);
+        opened.add(Map.entry(status.getUploadId(), userId));
+        return status;
+    }
+
+    private static byte[] pdf(int size) {
+        byte[] content = new byte[size];
+        Arrays.fill(content, (byte) 'x');
+        byte[] magic = "%PDF-1.4".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(magic, 0, content, 0, magic.length);
+        return content;
+    }
+
+    private static InputStream slice(byte[] content, int from, int to) {
+        return new ByteArrayInputStream(content, from, to - from);
+    }
+
+    private static List<String> ranges(UploadStatus status) {
+        return status.getReceived().stream().map(range -> range[0] + "-" + range[1]).toList();
+    }
+}
@@ -50,10 +50,11 @@ function showSection(section) {
     }
 }
 
-async function loadAllEbooks() {
+async function loadAllEbooks(cursor) {
     try {
-        const response = await axios.get(`${API_URL}/ebooks`);
-        displayEbooks(response.data);
+        const page = await fetchPage(`${API_URL}/ebooks`, cursor);
+        displayEbooks(page.items);
+        setNextPage('ebooksNext', page.nextCursor, loadAllEbooks);
     } catch (error) {
         console.error('Error loading ebooks:', error);
         showToast('Error loading ebooks', 'error');
@@ -104,6 +105,7 @@ async function searchBooks() {
     try {
         const response = await axios.get(`${API_URL}/ebooks/search?keyword=${keyword}`);
         displayEbooks(response.data);
+        setNextPage('ebooksNext', null);
     } catch (error) {
         console.error('Error searching ebooks:', error);
         showToast('Error searching ebooks', 'error');
@@ -205,10 +207,11 @@ document.getElementById('uploadForm').addEventListener('submit', async (e) => {
     }
 });
 
-async function loadAllUsers() {
+async function loadAllUsers(cursor) {
     try {
-        const response = await axios.get(`${API_URL}/users`);
-        displayUsers(response.data);
+        const page = await fetchPage(`${API_URL}/users`, cursor);
+        displayUsers(page.items);
+        setNextPage('usersNext', page.nextCursor, loadAllUsers);
     } catch (error) {
         console.error('Error loading users:', error);
         showToast('Error loading users', 'error');
@@ -0,0 +1,15 @@
+// List endpoints return one page at a time and send the cursor for the next
+// page in the X-Next-Cursor header
+const PAGE_SIZE = 20;
+
+async function fetchPage(url, cursor) {
+    const response = await axios.get(url, { params: { size: PAGE_SIZE, cursor: cursor || undefined } });
+    return { items: response.data, nextCursor: response.headers['x-next-cursor'] || null };
+}
+
+// Shows the "Next" button while there is another page; clicking it loads that page
+function setNextPage(buttonId, cursor, loadPage) {
+    const button = document.getElementById(buttonId);
+    button.style.display = cursor ? '' : 'none';
+    button.onclick = cursor ? () => loadPage(cursor) : null;
+}
@@ -27,21 +27,23 @@ function logout() {
     window.location.href = 'login.html';
 }
 
-async function loadAllBooks() {
+async function loadAllBooks(cursor) {
     try {
-        const response = await axios.get(`${API_URL}/ebooks`);
-        displayBooks(response.data);
+        const page = await fetchPage(`${API_URL}/ebooks`, cursor);
+        displayBooks(page.items);
+        setNextPage('booksNext', page.nextCursor, loadAllBooks);
     } catch (error) {
         console.error('Error loading books:', error);
         showToast('Error loading books', 'error');
     }
 }
 
-async function loadMyBooks() {
+async function loadMyBooks(cursor) {
     try {
-        const response = await axios.get(`${API_URL}/ebooks/my-ebooks`);
-        console.log('My books response:', response.data);
-        displayMyBooks(response.data);
+        const page = await fetchPage(`${API_URL}/ebooks/my-ebooks`, cursor);
+        console.log('My books response:', page.items);
+        displayMyBooks(page.items);
+        setNextPage('myBooksNext', page.nextCursor, loadMyBooks);
     } catch (error) {
         console.error('Error loading my books:', error);
         console.error('Error details:', error.response);
@@ -126,13 +128,14 @@ async function searchBooks() {
     try {
         const response = await axios.get(`${API_URL}/ebooks/search?keyword=${keyword}`);
         displayBooks(response.data);
+        setNextPage('booksNext', null);
     } catch (error) {
         console.error('Error searching books:', error);
         showToast('Error searching books', 'error');
     }
 }
 
-async function filterByCategory() {
+async function filterByCategory(cursor) {
     const category = document.getElementById('categoryFilter').value;
 
     if (!category) {
@@ -141,8 +144,9 @@ async function filterByCategory() {
     }
 
     try {
-        const response = await axios.get(`${API_URL}/ebooks/category/${category}`);
-        displayBooks(response.data);
+        const page = await fetchPage(`${API_URL}/ebooks/category/${encodeURIComponent(category)}`, cursor);
+        displayBooks(page.items);
+        setNextPage('booksNext', page.nextCursor, filterByCategory);
     } catch (error) {
         console.error('Error filtering books:', error);
         showToast('Error filtering books', 'error');